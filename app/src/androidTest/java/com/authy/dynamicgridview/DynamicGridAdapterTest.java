@@ -0,0 +1,158 @@
+package com.authy.dynamicgridview;
+
+import android.view.View;
+import android.view.ViewGroup;
+
+import junit.framework.TestCase;
+
+public class DynamicGridAdapterTest extends TestCase {
+
+    private DynamicGridAdapter<String> adapter;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        adapter = new DynamicGridAdapter<String>() {
+            @Override
+            public View getViewItem(int position, View convertView, ViewGroup parent) {
+                return null;
+            }
+        };
+        adapter.setAll("a", "b", "c", "d", "e");
+    }
+
+    public void testPositionsAreIndexesWithoutHeaders(){
+        adapter.setSections(0, 2);
+
+        assertEquals(5, adapter.getCount());
+        for(int i = 0; i < 5; i++){
+            assertEquals(i, adapter.getDataIndex(i));
+            assertEquals(i, adapter.getPositionForIndex(i));
+        }
+        assertEquals(-1, adapter.getDataIndex(5));
+        assertEquals(0, adapter.getSectionForPosition(1));
+        assertEquals(1, adapter.getSectionForPosition(2));
+    }
+
+    public void testHeadersAndFillersWithThreeColumns(){
+        adapter.setNumColumns(3);
+        adapter.setSections(0, 2);
+        adapter.setShowSectionHeaders(true);
+
+        // H F F a b F | H F F c d e
+        assertEquals(12, adapter.getCount());
+        assertTrue(adapter.isHeader(0));
+        assertEquals(-1, adapter.getDataIndex(0));
+        assertEquals(-1, adapter.getDataIndex(2));
+        assertEquals(0, adapter.getDataIndex(3));
+        assertEquals(1, adapter.getDataIndex(4));
+        assertEquals(-1, adapter.getDataIndex(5));
+        assertTrue(adapter.isHeader(6));
+        assertEquals(2, adapter.getDataIndex(9));
+        assertEquals(4, adapter.getDataIndex(11));
+        assertEquals("e", adapter.getItem(11));
+        assertNull(adapter.getItem(5));
+
+        for(int index = 0; index < 5; index++){
+            assertEquals(index, adapter.getDataIndex(adapter.getPositionForIndex(index)));
+        }
+        assertEquals(0, adapter.getSectionForPosition(5));
+        assertEquals(1, adapter.getSectionForPosition(6));
+        assertEquals(1, adapter.getSectionForPosition(11));
+    }
+
+    public void testIndexesSurviveColumnChanges(){
+        adapter.setSections(0, 2);
+        adapter.setShowSectionHeaders(true);
+        adapter.setNumColumns(3);
+        int position = adapter.getPositionForIndex(3);
+
+        adapter.setNumColumns(2);
+
+        assertTrue(position != adapter.getPositionForIndex(3));
+        assertEquals("d", adapter.getItem(adapter.getPositionForIndex(3)));
+    }
+
+    public void testEmptySections(){
+        adapter.setSections(0, 2, 2, 5);
+
+        assertEquals(0, adapter.getSectionLength(1));
+        assertEquals(0, adapter.getSectionLength(3));
+        assertEquals(2, adapter.getSectionForPosition(2));
+        assertEquals(2, adapter.getPositionForIndex(2));
+
+        adapter.setNumColumns(2);
+        adapter.setShowSectionHeaders(true);
+
+        // H F a b | H F | H F c d e F | H F
+        assertEquals(14, adapter.getCount());
+        assertEquals(1, adapter.getSectionForPosition(4));
+        assertTrue(adapter.isHeader(4));
+        assertEquals(2, adapter.getSectionForPosition(6));
+        assertEquals(2, adapter.getDataIndex(8));
+        assertEquals(8, adapter.getPositionForIndex(2));
+        assertEquals(3, adapter.getSectionForPosition(13));
+        assertEquals(-1, adapter.getDataIndex(13));
+    }
+
+    public void testCanSwapRejectsHeadersAndFillers(){
+        adapter.setNumColumns(3);
+        adapter.setSections(0, 2);
+        adapter.setShowSectionHeaders(true);
+
+        assertTrue(adapter.canSwap(3, 4));
+        assertTrue(adapter.canSwap(3, 9));
+        assertFalse(adapter.canSwap(3, 0));
+        assertFalse(adapter.canSwap(3, 5));
+        assertFalse(adapter.canMove(3, 9));
+
+        adapter.setSectionPolicy(new DynamicGridAdapter.SameSectionPolicy());
+        assertFalse(adapter.canSwap(3, 9));
+    }
+
+    public void testSwapAndMoveUseDataIndexes(){
+        adapter.setNumColumns(3);
+        adapter.setSections(0, 2);
+        adapter.setShowSectionHeaders(true);
+
+        adapter.swap(3, 9);
+        assertEquals("c", adapter.getItem(3));
+        assertEquals("a", adapter.getItem(9));
+
+        adapter.move(9, 11);
+        assertEquals("d", adapter.getItem(9));
+        assertEquals("a", adapter.getItem(11));
+
+        adapter.moveIndex(4, 2);
+        adapter.swapIndexes(0, 2);
+        assertEquals("a", adapter.getItem(3));
+        assertEquals("c", adapter.getItem(9));
+    }
+
+    public void testDataVersionChangesOnlyWhenItemsAreReplaced(){
+        int version = adapter.getDataVersion();
+
+        adapter.swap(0, 1);
+        adapter.move(1, 3);
+        adapter.setSections(0, 2);
+        assertEquals(version, adapter.getDataVersion());
+
+        adapter.setAll("f", "g");
+        assertTrue(adapter.getDataVersion() != version);
+    }
+
+    public void testInvalidSectionsAreRejected(){
+        try {
+            adapter.setSections(1, 2);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            adapter.setSections(0, 6);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
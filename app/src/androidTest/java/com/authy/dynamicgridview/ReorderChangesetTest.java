@@ -0,0 +1,115 @@
+package com.authy.dynamicgridview;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class ReorderChangesetTest extends TestCase {
+
+    private List<Integer> items;
+    private SwapHistory swapHistory;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        items = range(10);
+        swapHistory = new SwapHistory(new SwapHistory.Swapper() {
+            @Override
+            public void swapItems(int pos1, int pos2) {
+                Collections.swap(items, pos1, pos2);
+            }
+
+            @Override
+            public void moveItem(int from, int to) {
+                items.add(to, items.remove(from));
+            }
+        });
+    }
+
+    public void testMovesStaySingleOperations(){
+        move(0, 9);
+        swap(4, 5);
+        swap(5, 4);
+        move(9, 0);
+
+        ReorderChangeset changeset = ReorderChangeset.fromOps(swapHistory.getOps());
+
+        assertEquals(2, changeset.size());
+        assertTrue(changeset.isMove(0));
+        assertEquals(0, changeset.getFrom(0));
+        assertEquals(9, changeset.getTo(0));
+        assertTrue(changeset.isMove(1));
+    }
+
+    public void testCancellingSwapsGiveAnEmptyChangeset(){
+        swap(1, 2);
+        swap(2, 1);
+
+        assertTrue(ReorderChangeset.fromOps(swapHistory.getOps()).isEmpty());
+    }
+
+    public void testApplyReplaysTheArrangement(){
+        Random random = new Random(42);
+        for(int trial = 0; trial < 200; trial++){
+            setUpQuietly();
+            for(int i = 0; i < 30; i++){
+                int from = random.nextInt(items.size());
+                int to = random.nextInt(items.size());
+                if(random.nextInt(4) == 0){
+                    move(from, to);
+                }
+                else {
+                    swap(from, to);
+                }
+            }
+
+            List<Integer> replayed = range(10);
+            ReorderChangeset.fromOps(swapHistory.getOps()).apply(replayed);
+            assertEquals(items, replayed);
+        }
+    }
+
+    public void testCommittedOpsAreDiscarded(){
+        swap(0, 1);
+        swap(2, 3);
+        List<Integer> committed = new ArrayList<Integer>(items);
+        swap(4, 5);
+
+        swapHistory.discardOldest(2);
+        ReorderChangeset.fromOps(swapHistory.getOps()).apply(committed);
+        assertEquals(items, committed);
+
+        swapHistory.reverseOps();
+        assertEquals(Arrays.asList(1, 0, 3, 2, 4, 5, 6, 7, 8, 9), items);
+    }
+
+    private void swap(int from, int to){
+        Collections.swap(items, from, to);
+        swapHistory.push(from, to);
+    }
+
+    private void move(int from, int to){
+        items.add(to, items.remove(from));
+        swapHistory.pushMove(from, to);
+    }
+
+    private void setUpQuietly(){
+        try {
+            setUp();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static List<Integer> range(int count){
+        List<Integer> list = new ArrayList<Integer>();
+        for(int i = 0; i < count; i++){
+            list.add(i);
+        }
+        return list;
+    }
+}
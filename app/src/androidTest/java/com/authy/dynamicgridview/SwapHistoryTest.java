@@ -0,0 +1,177 @@
+package com.authy.dynamicgridview;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.SortedMap;
+
+public class SwapHistoryTest extends TestCase {
+
+    private List<Integer> items;
+    private SwapHistory swapHistory;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        items = new ArrayList<Integer>();
+        for(int i = 0; i < 10; i++){
+            items.add(i);
+        }
+        swapHistory = new SwapHistory(new SwapHistory.Swapper() {
+            @Override
+            public void swapItems(int pos1, int pos2) {
+                Collections.swap(items, pos1, pos2);
+            }
+
+            @Override
+            public void moveItem(int from, int to) {
+                items.add(to, items.remove(from));
+            }
+        });
+    }
+
+    public void testReverseOpsRestoresSwapsAndMoves(){
+        swap(0, 3);
+        move(1, 7);
+        swap(9, 2);
+        move(8, 0);
+
+        swapHistory.reverseOps();
+
+        assertEquals(range(10), items);
+        assertEquals(0, swapHistory.size());
+    }
+
+    public void testComputeOriginsFollowsSwaps(){
+        swap(0, 1);
+        swap(1, 2);
+
+        SortedMap<Integer, Integer> origins = SwapHistory.computeOrigins(swapHistory.getOps());
+
+        assertEquals(3, origins.size());
+        assertEquals(Integer.valueOf(1), origins.get(0));
+        assertEquals(Integer.valueOf(2), origins.get(1));
+        assertEquals(Integer.valueOf(0), origins.get(2));
+    }
+
+    public void testComputeOriginsRejectsMoves(){
+        move(0, 5);
+        try {
+            SwapHistory.computeOrigins(swapHistory.getOps());
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    public void testCompactKeepsAtMostOneSwapPerMovedItem(){
+        for(int i = 0; i < 50; i++){
+            swap(2, 3);
+        }
+        swap(0, 1);
+        swap(1, 2);
+
+        swapHistory.compact();
+
+        assertEquals(2, swapHistory.size());
+        swapHistory.reverseOps();
+        assertEquals(range(10), items);
+    }
+
+    public void testCompactThenReverseOpsRestoresOriginalOrder(){
+        Random random = new Random(42);
+        for(int trial = 0; trial < 200; trial++){
+            setUpQuietly();
+            for(int i = 0; i < 30; i++){
+                int from = random.nextInt(items.size());
+                int to = random.nextInt(items.size());
+                if(random.nextInt(4) == 0){
+                    move(from, to);
+                }
+                else {
+                    swap(from, to);
+                }
+            }
+            swapHistory.compact();
+            swapHistory.reverseOps();
+            assertEquals(range(10), items);
+        }
+    }
+
+    public void testCompactReducesMixedOpsToTheNetPermutation(){
+        Random random = new Random(7);
+        for(int i = 0; i < 300; i++){
+            int from = random.nextInt(items.size());
+            int to = random.nextInt(items.size());
+            if(random.nextBoolean()){
+                move(from, to);
+            }
+            else {
+                swap(from, to);
+            }
+        }
+        List<Integer> arrangement = new ArrayList<Integer>(items);
+
+        swapHistory.compact();
+
+        assertTrue(swapHistory.size() <= items.size() - 1);
+        List<Integer> replayed = range(10);
+        ReorderChangeset.fromOps(swapHistory.getOps()).apply(replayed);
+        assertEquals(arrangement, replayed);
+        swapHistory.reverseOps();
+        assertEquals(range(10), items);
+    }
+
+    public void testCompactKeepsAFewLongMoves(){
+        // rotating the whole list by two would take 8 swaps
+        move(0, 9);
+        move(0, 9);
+
+        swapHistory.compact();
+
+        assertEquals(2, swapHistory.size());
+        swapHistory.reverseOps();
+        assertEquals(range(10), items);
+    }
+
+    public void testClearReleasesCapacity(){
+        for(int i = 0; i < 100; i++){
+            swap(0, 1);
+        }
+        long retained = swapHistory.getRetainedBytes();
+
+        swapHistory.clear();
+
+        assertTrue(swapHistory.getRetainedBytes() < retained);
+        assertEquals(0, swapHistory.getRetainedBytes());
+    }
+
+    private void swap(int from, int to){
+        Collections.swap(items, from, to);
+        swapHistory.push(from, to);
+    }
+
+    private void move(int from, int to){
+        items.add(to, items.remove(from));
+        swapHistory.pushMove(from, to);
+    }
+
+    private void setUpQuietly(){
+        try {
+            setUp();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static List<Integer> range(int count){
+        List<Integer> list = new ArrayList<Integer>();
+        for(int i = 0; i < count; i++){
+            list.add(i);
+        }
+        return list;
+    }
+}
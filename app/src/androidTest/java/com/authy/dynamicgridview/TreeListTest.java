@@ -0,0 +1,75 @@
+package com.authy.dynamicgridview;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class TreeListTest extends TestCase {
+
+    public void testBehavesLikeArrayList(){
+        Random random = new Random(7);
+        List<Integer> expected = new ArrayList<Integer>();
+        TreeList<Integer> list = new TreeList<Integer>();
+
+        for(int i = 0; i < 5000; i++){
+            int op = random.nextInt(5);
+            int size = expected.size();
+            if(op == 0 || size == 0){
+                int index = random.nextInt(size + 1);
+                expected.add(index, i);
+                list.add(index, i);
+            }
+            else if(op == 1){
+                int index = random.nextInt(size);
+                assertEquals(expected.remove(index), list.remove(index));
+            }
+            else if(op == 2){
+                int index = random.nextInt(size);
+                assertEquals(expected.set(index, -i), list.set(index, -i));
+            }
+            else {
+                int from = random.nextInt(size);
+                int to = random.nextInt(size);
+                expected.add(to, expected.remove(from));
+                list.add(to, list.remove(from));
+            }
+            assertEquals(expected.size(), list.size());
+        }
+        assertEquals(expected, list);
+    }
+
+    public void testMovesReuseNodes(){
+        TreeList<Integer> list = new TreeList<Integer>();
+        for(int i = 0; i < 50000; i++){
+            list.add(i);
+        }
+        long retained = list.getRetainedBytes();
+
+        for(int i = 0; i < 1000; i++){
+            list.add(0, list.remove(list.size() - 1));
+        }
+
+        assertEquals(retained, list.getRetainedBytes());
+        assertEquals(Integer.valueOf(49000), list.get(0));
+        assertEquals(Integer.valueOf(48999), list.get(list.size() - 1));
+    }
+
+    public void testOutOfBounds(){
+        TreeList<String> list = new TreeList<String>();
+        list.add("a");
+        try {
+            list.get(1);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+        try {
+            list.add(3, "b");
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+}
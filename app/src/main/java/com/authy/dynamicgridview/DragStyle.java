@@ -0,0 +1,239 @@
+package com.authy.dynamicgridview;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Point;
+import android.view.View;
+
+/**
+ * Controls how a dragged item looks and moves: the scale and rotation of its shadow, the shadow's
+ * alpha, the duration of the swap animations and the maximum resolution of the shadow.
+ *
+ * A {@link Shadow} is created once per drag. When possible it draws the view directly with a
+ * single canvas transform so no bitmap is created at all. Subclasses can override
+ * {@link #drawShadow(View, Canvas, float, float)} to draw a completely different shadow.
+ */
+public class DragStyle {
+
+    /**
+     * The platform look: the shadow is the view as is.
+     */
+    public static final DragStyle DEFAULT = new DragStyle(1.0f, 0f, 1.0f, 100, 0);
+
+    /**
+     * The item appears lifted: scaled up by 20% and rotated 5 degrees.
+     */
+    public static final DragStyle LIFTED = new DragStyle(1.2f, 5f, 1.0f, 100, 0);
+
+    /**
+     * A style for low end devices: the shadow is neither scaled nor rotated and, in multi-touch
+     * drags, cells larger than 256px are rendered at a lower resolution and scaled back up.
+     */
+    public static final DragStyle LITE = new DragStyle(1.0f, 0f, 1.0f, 100, 256);
+
+    private final float scale;
+    private final float rotation;
+    private final float alpha;
+    private final long animationDuration;
+    private final int maxShadowResolution;
+
+    /**
+     * @param scale the factor by which the shadow is scaled with respect to the dragged view
+     * @param rotation the rotation of the shadow in degrees
+     * @param alpha the alpha of the shadow, between 0 and 1
+     * @param animationDuration the duration of the swap animations in milliseconds
+     * @param maxShadowResolution the maximum width or height in pixels at which the shadow is
+     *                            rendered. Larger shadows are rendered at a lower resolution and
+     *                            scaled up, so they keep their size. 0 means no limit. Only
+     *                            applies to the shadows the grid draws itself, i.e. multi-touch
+     *                            drags, the platform drag shadow is always rendered at full size.
+     */
+    public DragStyle(float scale, float rotation, float alpha, long animationDuration, int maxShadowResolution) {
+        this.scale = scale;
+        this.rotation = rotation;
+        this.alpha = alpha;
+        this.animationDuration = animationDuration;
+        this.maxShadowResolution = maxShadowResolution;
+    }
+
+    public float getScale() {
+        return scale;
+    }
+
+    public float getRotation() {
+        return rotation;
+    }
+
+    public float getAlpha() {
+        return alpha;
+    }
+
+    public long getAnimationDuration() {
+        return animationDuration;
+    }
+
+    public int getMaxShadowResolution() {
+        return maxShadowResolution;
+    }
+
+    /**
+     * @return the factor, at most 1, by which the shadow of the given view is downsampled
+     */
+    public float getResolutionScale(View view){
+        float largest = Math.max(view.getWidth(), view.getHeight()) * scale;
+        if(maxShadowResolution > 0 && largest > maxShadowResolution){
+            return maxShadowResolution / largest;
+        }
+        return 1.0f;
+    }
+
+    /**
+     * Computes the size of the shadow for the given view, i.e. the bounding box of the scaled and
+     * rotated view.
+     * @param view the view being dragged
+     * @param size will be set to the width and height of the shadow
+     */
+    public void getShadowSize(View view, Point size){
+        float w = view.getWidth() * scale;
+        float h = view.getHeight() * scale;
+
+        if(rotation == 0f){
+            size.set(Math.max(1, Math.round(w)), Math.max(1, Math.round(h)));
+            return;
+        }
+
+        double rad = Math.toRadians(rotation);
+        double cos = Math.abs(Math.cos(rad));
+        double sin = Math.abs(Math.sin(rad));
+        size.set(Math.max(1, (int) Math.ceil(w * cos + h * sin)),
+                 Math.max(1, (int) Math.ceil(w * sin + h * cos)));
+    }
+
+    /**
+     * Draws the view scaled and rotated, centered on the given point of the canvas, at full
+     * opacity. Alpha and downsampling are applied by {@link Shadow}.
+     */
+    public void drawShadow(View view, Canvas canvas, float centerX, float centerY){
+        int saveCount = canvas.save();
+        canvas.translate(centerX, centerY);
+        if(rotation != 0f){
+            canvas.rotate(rotation);
+        }
+        if(scale != 1.0f){
+            canvas.scale(scale, scale);
+        }
+        canvas.translate(-view.getWidth() / 2f, -view.getHeight() / 2f);
+        view.draw(canvas);
+        canvas.restoreToCount(saveCount);
+    }
+
+    /**
+     * Equivalent to {@code createShadow(view, false)}
+     */
+    public Shadow createShadow(View view){
+        return createShadow(view, false);
+    }
+
+    /**
+     * Creates the shadow of the given view. A bitmap is only rendered when the shadow is
+     * downsampled, translucent or when {@code snapshot} is set.
+     *
+     * @param view the view being dragged
+     * @param snapshot true if the shadow must not depend on the view after this call, e.g.
+     *                 because the view will be rebound while the shadow is shown
+     */
+    public Shadow createShadow(View view, boolean snapshot){
+        Point size = new Point();
+        getShadowSize(view, size);
+        float resolution = getResolutionScale(view);
+        if(!snapshot && resolution == 1.0f && alpha >= 1.0f){
+            return new Shadow(this, view, null, size.x, size.y, 1.0f);
+        }
+
+        int bitmapWidth = Math.max(1, Math.round(size.x * resolution));
+        int bitmapHeight = Math.max(1, Math.round(size.y * resolution));
+        Bitmap bitmap = Bitmap.createBitmap(bitmapWidth, bitmapHeight, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+        canvas.scale(resolution, resolution);
+        drawShadow(view, canvas, size.x / 2f, size.y / 2f);
+        return new Shadow(this, null, bitmap, size.x, size.y, resolution);
+    }
+
+    /**
+     * The shadow of one dragged view. Everything that can be computed up front is, so drawing a
+     * shadow neither allocates nor opens a layer.
+     */
+    public static class Shadow {
+
+        private final DragStyle dragStyle;
+        private final View view;
+        private Bitmap bitmap;
+        private final Paint paint;
+        private final int width;
+        private final int height;
+        private final float upscale;
+
+        private Shadow(DragStyle dragStyle, View view, Bitmap bitmap, int width, int height, float resolution) {
+            this.dragStyle = dragStyle;
+            this.view = view;
+            this.bitmap = bitmap;
+            this.width = width;
+            this.height = height;
+            this.upscale = 1.0f / resolution;
+            this.paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+            this.paint.setAlpha(Math.round(dragStyle.getAlpha() * 255));
+        }
+
+        /**
+         * @return the width of the shadow as drawn on screen
+         */
+        public int getWidth() {
+            return width;
+        }
+
+        /**
+         * @return the height of the shadow as drawn on screen
+         */
+        public int getHeight() {
+            return height;
+        }
+
+        /**
+         * Draws the shadow centered on the given point
+         */
+        public void draw(Canvas canvas, float centerX, float centerY){
+            if(bitmap == null){
+                if(view != null){
+                    dragStyle.drawShadow(view, canvas, centerX, centerY);
+                }
+                return;
+            }
+
+            int saveCount = canvas.save();
+            canvas.translate(centerX - width / 2f, centerY - height / 2f);
+            if(upscale != 1.0f){
+                canvas.scale(upscale, upscale);
+            }
+            canvas.drawBitmap(bitmap, 0, 0, paint);
+            canvas.restoreToCount(saveCount);
+        }
+
+        /**
+         * @return the size of the shadow bitmap in bytes, 0 if the view is drawn directly
+         */
+        public long getByteCount(){
+            return bitmap == null ? 0 : (long) bitmap.getRowBytes() * bitmap.getHeight();
+        }
+
+        /**
+         * Releases the shadow bitmap, the shadow draws nothing afterwards
+         */
+        public void recycle(){
+            if(bitmap != null){
+                bitmap.recycle();
+                bitmap = null;
+            }
+        }
+    }
+}
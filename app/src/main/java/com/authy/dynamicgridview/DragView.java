@@ -21,11 +21,7 @@ package com.authy.dynamicgridview;
 
 import android.annotation.SuppressLint;
 import android.content.Context;
-import android.graphics.Bitmap;
 import android.graphics.Canvas;
-import android.graphics.Color;
-import android.graphics.Matrix;
-import android.graphics.Paint;
 import android.graphics.PixelFormat;
 import android.os.IBinder;
 import android.view.DragEvent;
@@ -42,15 +38,13 @@ import android.view.WindowManager;
 @SuppressLint("ViewConstructor")
 public class DragView extends View
 {
-    private Bitmap mBitmap;
-
-    private Paint dragViewPaint;
+    private DragStyle.Shadow mShadow;
 
     private WindowManager.LayoutParams mLayoutParams;
     private WindowManager mWindowManager;
 
     /**
-     * Construct the drag view.
+     * Construct the drag view using {@link DragStyle#LIFTED}.
      * <p>
      * The registration point is the point inside our view that the touch events should
      * be centered upon.
@@ -59,54 +53,39 @@ public class DragView extends View
      * @param view The view that we're dragging around.  We scale it up when we draw it.
      */
     public DragView(Context context, View view) {
-        super(context);
-
-        mWindowManager = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
-
-        mBitmap = getBitmapFromView(view);
-
-        dragViewPaint = new Paint();
-        dragViewPaint.setColor(Color.RED);
+        this(context, view, DragStyle.LIFTED);
     }
 
     /**
-     * Creates a drawing cache for a given view temporarily and uses it to get the drawing cache
-     * as a bitmap. It then returns the drawing cache to it's normal state.
-     * @param view the view from which a bitmap will be obtained
-     * @return a bitmap representing the view.
+     * Construct the drag view. The view is rendered once into a bitmap as described by the
+     * {@link DragStyle}, at a reduced resolution if the style limits it.
+     *
+     * @param context A context
+     * @param view The view that we're dragging around.
+     * @param dragStyle controls the scale, rotation, alpha and resolution of the drawn view
      */
-    public Bitmap getBitmapFromView(View view){
-        boolean isDrawingCacheEnabled = view.isDrawingCacheEnabled();
-        view.setDrawingCacheEnabled(true);
-        Bitmap bitmap = view.getDrawingCache();
-        Bitmap result = Bitmap.createScaledBitmap(bitmap, (int)(bitmap.getWidth()*1.2f), (int)(bitmap.getHeight()*1.2f), true);
-        result = rotateBitmap(result, 5);
-        view.setDrawingCacheEnabled(isDrawingCacheEnabled);
-
-        return result;
-    }
+    public DragView(Context context, View view, DragStyle dragStyle) {
+        super(context);
+
+        mWindowManager = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
 
-    public static Bitmap rotateBitmap(Bitmap source, float angle)
-    {
-        Matrix matrix = new Matrix();
-        matrix.postRotate(angle);
-        return Bitmap.createBitmap(source, 0, 0, source.getWidth(), source.getHeight(), matrix, true);
+        mShadow = dragStyle.createShadow(view, true);
     }
 
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
-        setMeasuredDimension(mBitmap.getWidth(), mBitmap.getHeight());
+        setMeasuredDimension(mShadow.getWidth(), mShadow.getHeight());
     }
 
     @Override
     protected void onDraw(Canvas canvas) {
-        canvas.drawBitmap(mBitmap, 0.0f, 0.0f, dragViewPaint);
+        mShadow.draw(canvas, mShadow.getWidth() / 2f, mShadow.getHeight() / 2f);
     }
 
     @Override
     protected void onDetachedFromWindow() {
         super.onDetachedFromWindow();
-        mBitmap.recycle();
+        mShadow.recycle();
     }
 
     /**
@@ -125,7 +104,7 @@ public class DragView extends View
         lp = new WindowManager.LayoutParams(
                 ViewGroup.LayoutParams.WRAP_CONTENT,
                 ViewGroup.LayoutParams.WRAP_CONTENT,
-                touchX - mBitmap.getWidth()/2, touchY - mBitmap.getHeight()/2,
+                touchX - mShadow.getWidth()/2, touchY - mShadow.getHeight()/2,
                 WindowManager.LayoutParams.TYPE_APPLICATION_SUB_PANEL,
                 WindowManager.LayoutParams.FLAG_LAYOUT_IN_SCREEN
                         | WindowManager.LayoutParams.FLAG_LAYOUT_NO_LIMITS,
@@ -148,8 +127,8 @@ public class DragView extends View
     public void move(int touchX, int touchY) {
         // update the X and Y position
         WindowManager.LayoutParams lp = mLayoutParams;
-        lp.x = touchX - mBitmap.getWidth()/2;
-        lp.y = touchY - mBitmap.getHeight()/2;
+        lp.x = touchX - mShadow.getWidth()/2;
+        lp.y = touchY - mShadow.getHeight()/2;
         mWindowManager.updateViewLayout(this, lp);
     }
 
@@ -0,0 +1,221 @@
+package com.authy.dynamicgridview;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Turns the uncommitted operations of a {@link SwapHistory} into a {@link ReorderChangeset} and
+ * hands it to a {@link DynamicGridView.ReorderPersister} on a background executor. Operations are
+ * only recorded while a persister is set, see {@link #isRecording()}.
+ *
+ * Drops that happen within {@link #COALESCE_DELAY} of each other, or while a commit is in
+ * flight, are coalesced into a single commit. If persisting fails every uncommitted operation is
+ * reversed through {@link SwapHistory#reverseOps()}.
+ *
+ * Every commit carries the generation it was started in. {@link #reset()} starts a new generation,
+ * so results of commits started before it are ignored. The history is also reset when the
+ * adapter's data is replaced, see {@link DynamicGridAdapter#getDataVersion()}, since its indexes
+ * would no longer point at the same items.
+ *
+ * All methods must be called on the main thread.
+ */
+class DropCommitter {
+
+    public static final long COALESCE_DELAY = 300;
+
+    private final DynamicGridView gridView;
+    private final SwapHistory swapHistory;
+    private final Handler handler;
+
+    private DynamicGridView.ReorderPersister persister;
+    private Executor executor;
+    private DynamicGridView.OnCommitListener onCommitListener;
+
+    private int generation;
+    private int dataVersion;
+    private boolean commitInFlight;
+    private boolean rollbackPending;
+    private ReorderChangeset failedChangeset;
+    private Exception failure;
+
+    private final Runnable commitRunnable = new Runnable() {
+        @Override
+        public void run() {
+            commit();
+        }
+    };
+
+    public DropCommitter(DynamicGridView gridView, SwapHistory swapHistory) {
+        this.gridView = gridView;
+        this.swapHistory = swapHistory;
+        this.handler = new Handler(Looper.getMainLooper());
+        this.onCommitListener = new DynamicGridView.DefOnCommitListener();
+    }
+
+    /**
+     * Sets the persister. Removing it discards the uncommitted operations, since nothing would
+     * ever commit them.
+     */
+    public void setPersister(DynamicGridView.ReorderPersister persister, Executor executor) {
+        this.persister = persister;
+        this.executor = executor;
+        if(persister == null){
+            reset();
+        }
+    }
+
+    /**
+     * @return true if operations should be recorded in the history, i.e. a persister is set.
+     * Discards the history first if the data it was recorded on has been replaced.
+     */
+    public boolean isRecording(){
+        if(persister == null){
+            return false;
+        }
+        discardIfDataReplaced();
+        return true;
+    }
+
+    /**
+     * Discards the uncommitted operations and any pending commit or rollback, e.g. because the
+     * adapter was replaced. A commit in flight still completes but its result is ignored.
+     */
+    public void reset(){
+        handler.removeCallbacks(commitRunnable);
+        generation++;
+        commitInFlight = false;
+        rollbackPending = false;
+        failedChangeset = null;
+        failure = null;
+        swapHistory.clear();
+        DynamicGridAdapter<?> adapter = gridView.getAdapter();
+        dataVersion = adapter == null ? 0 : adapter.getDataVersion();
+    }
+
+    /**
+     * @return true if the adapter's data was replaced since the history was recorded, in which
+     * case the history has been discarded
+     */
+    private boolean discardIfDataReplaced(){
+        DynamicGridAdapter<?> adapter = gridView.getAdapter();
+        if(adapter == null || adapter.getDataVersion() == dataVersion){
+            return false;
+        }
+        reset();
+        return true;
+    }
+
+    public void setOnCommitListener(DynamicGridView.OnCommitListener onCommitListener) {
+        this.onCommitListener = onCommitListener;
+    }
+
+    public boolean isCommitInFlight() {
+        return commitInFlight;
+    }
+
+    /**
+     * Called after every drop. Runs a pending rollback or schedules a commit.
+     */
+    public void onDrop(){
+        if(rollbackPending){
+            rollback();
+            return;
+        }
+        if(persister != null){
+            handler.removeCallbacks(commitRunnable);
+            handler.postDelayed(commitRunnable, COALESCE_DELAY);
+        }
+    }
+
+    /**
+     * Commits the uncommitted operations right away. Does nothing while a drag is in progress or
+     * while another commit is in flight, in which case the operations are committed afterwards.
+     */
+    public void commit(){
+        handler.removeCallbacks(commitRunnable);
+        if(persister == null || commitInFlight || rollbackPending || gridView.isDragging()
+                || discardIfDataReplaced()){
+            return;
+        }
+
+        final int opCount = swapHistory.size();
+        if(opCount == 0){
+            return;
+        }
+
+        // only the snapshot is taken here, the operations are compacted on the executor
+        final List<SwapHistory.GridSwapOperation> ops = swapHistory.getOps();
+        final int commitGeneration = generation;
+        final DynamicGridView.ReorderPersister reorderPersister = persister;
+        commitInFlight = true;
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final ReorderChangeset changeset = ReorderChangeset.fromOps(ops);
+                Exception error = null;
+                if(!changeset.isEmpty()){
+                    try {
+                        reorderPersister.persist(changeset);
+                    } catch (Exception e) {
+                        error = e;
+                    }
+                }
+
+                final Exception result = error;
+                handler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        onPersisted(commitGeneration, changeset, opCount, result);
+                    }
+                });
+            }
+        });
+    }
+
+    private void onPersisted(int commitGeneration, ReorderChangeset changeset, int opCount, Exception error){
+        if(commitGeneration != generation){
+            return;
+        }
+        commitInFlight = false;
+
+        if(error == null){
+            swapHistory.discardOldest(opCount);
+            if(!changeset.isEmpty()){
+                onCommitListener.onCommitted(changeset);
+            }
+            if(swapHistory.size() > 0){
+                onDrop();
+            }
+            return;
+        }
+
+        failedChangeset = changeset;
+        failure = error;
+        rollbackPending = true;
+        if(!gridView.isDragging()){
+            rollback();
+        }
+    }
+
+    /**
+     * Reverses every uncommitted operation, including those made after the failed commit was
+     * started, since the history can only be unwound from the top. If the data was replaced in
+     * the meantime there is nothing left to reverse, the listener is still told about the failure.
+     */
+    private void rollback(){
+        handler.removeCallbacks(commitRunnable);
+        rollbackPending = false;
+        ReorderChangeset changeset = failedChangeset;
+        Exception error = failure;
+        if(!discardIfDataReplaced()){
+            swapHistory.reverseOps();
+            gridView.getAdapter().notifyDataSetChanged();
+        }
+        onCommitListener.onRolledBack(changeset, error);
+        failedChangeset = null;
+        failure = null;
+    }
+}
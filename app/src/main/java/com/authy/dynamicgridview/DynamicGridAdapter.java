@@ -6,38 +6,73 @@ import android.widget.BaseAdapter;
 import android.widget.ListAdapter;
 import android.widget.ListView;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.List;
 
 /**
  * Created by fernandinho on 10/27/14.
+ *
+ * The items can optionally be split into sections. Section boundaries are stored as a sorted
+ * array of start indexes so the section of any position is found with a binary search. When
+ * section headers are shown each header takes a full row: the header cell is followed by empty
+ * filler cells and every section is padded to a full row.
  */
 public abstract class DynamicGridAdapter<T> extends BaseAdapter {
 
-    private List<T> data;
+    public static final int VIEW_TYPE_ITEM = 0;
+    public static final int VIEW_TYPE_HEADER = 1;
+    public static final int VIEW_TYPE_FILLER = 2;
+
+    private static final int REFERENCE_BYTES = 4;
+
+    private TreeList<T> data;
     private int draggingPosition;
     private int draggingOver;
+    private int[] draggingPositions;
+
+    /** index in {@link #data} of the first item of every section */
+    private int[] sectionStarts;
+    /** adapter position of the first cell (the header if shown) of every section */
+    private int[] sectionPositions;
+    private boolean showSectionHeaders;
+    private int numColumns;
+    private SectionPolicy sectionPolicy;
+    private int dataVersion;
 
     public DynamicGridAdapter(){
         super();
-        data = new ArrayList<T>();
+        data = new TreeList<T>();
         draggingPosition = -1;
         draggingOver = -1;
+        sectionStarts = new int[]{0};
+        sectionPositions = new int[]{0};
+        showSectionHeaders = false;
+        numColumns = 1;
     }
 
     @Override
     public int getCount() {
-        return data.size();
+        if(!showSectionHeaders){
+            return data.size();
+        }
+        int last = sectionStarts.length - 1;
+        return sectionPositions[last] + numColumns + roundUpToRow(getSectionLength(last));
     }
 
+    /**
+     * @return the item at the given position or {@code null} if the position is a section header
+     * or a filler cell
+     */
     @Override
     public T getItem(int position) {
-        return data.get(position);
+        int index = getDataIndex(position);
+        return index == -1 ? null : data.get(index);
     }
 
+    /**
+     * Adds an item to the end of the last section
+     */
     public void add(T item){
         data.add(item);
     }
@@ -47,9 +82,16 @@ public abstract class DynamicGridAdapter<T> extends BaseAdapter {
         notifyDataSetChanged();
     }
 
+    /**
+     * Replaces all items. Any section boundaries are cleared and the data version is incremented,
+     * see {@link #getDataVersion()}.
+     */
     public void setAll(Collection<T> items){
+        dataVersion++;
         data.clear();
         data.addAll(items);
+        sectionStarts = new int[]{0};
+        rebuildSectionPositions();
         notifyDataSetChanged();
     }
 
@@ -61,11 +103,256 @@ public abstract class DynamicGridAdapter<T> extends BaseAdapter {
         setAll(Arrays.asList(items));
     }
 
+    /**
+     * @return a counter incremented every time the items are replaced. Indexes into the data,
+     * such as those recorded for a {@link DynamicGridView.ReorderPersister}, are only valid
+     * within one version.
+     */
+    public int getDataVersion() {
+        return dataVersion;
+    }
+
+    /**
+     * Swaps the items at the given adapter positions. Both positions must be items, see
+     * {@link #canSwap(int, int)}.
+     */
     public void swap(int pos1, int pos2){
-        T first = data.get(pos1);
-        T second = data.get(pos2);
-        data.set(pos1, second);
-        data.set(pos2, first);
+        swapIndexes(getDataIndex(pos1), getDataIndex(pos2));
+    }
+
+    /**
+     * Swaps the items at the given indexes of the underlying list, see
+     * {@link #getDataIndex(int)}
+     */
+    public void swapIndexes(int index1, int index2){
+        T first = data.get(index1);
+        T second = data.get(index2);
+        data.set(index1, second);
+        data.set(index2, first);
+    }
+
+    /**
+     * Moves the item at {@code from} to {@code to}, shifting the items in between by one.
+     * The items are kept in a tree indexed by position, so this takes O(log n) regardless of
+     * the distance between both positions. Both positions must be items of the same section,
+     * see {@link #canMove(int, int)}.
+     * @param from the current position of the item
+     * @param to the position the item will occupy after the move
+     */
+    public void move(int from, int to){
+        moveIndex(getDataIndex(from), getDataIndex(to));
+    }
+
+    /**
+     * Same as {@link #move(int, int)} but with indexes of the underlying list, see
+     * {@link #getDataIndex(int)}
+     */
+    public void moveIndex(int fromIndex, int toIndex){
+        if(fromIndex == toIndex){
+            return;
+        }
+        data.add(toIndex, data.remove(fromIndex));
+    }
+
+    /**
+     * @return true if the items at the given positions may be swapped: both must be items (not
+     * headers or fillers) and the {@link SectionPolicy}, if any, must allow it.
+     */
+    public boolean canSwap(int from, int to){
+        if(!isItem(from) || !isItem(to)){
+            return false;
+        }
+        return sectionPolicy == null || sectionPolicy.canSwap(
+                getSectionForPosition(from), from, getSectionForPosition(to), to);
+    }
+
+    /**
+     * @return true if the item at {@code from} may be moved to {@code to}. Same as
+     * {@link #canSwap(int, int)} but both positions must be in the same section.
+     */
+    public boolean canMove(int from, int to){
+        return canSwap(from, to) && getSectionForPosition(from) == getSectionForPosition(to);
+    }
+
+    /**
+     * Splits the items into sections.
+     * @param sectionStarts the index of the first item of every section. Must be sorted, start
+     *                      with 0 and not be larger than the number of items.
+     */
+    public void setSections(int... sectionStarts){
+        if(sectionStarts.length == 0 || sectionStarts[0] != 0){
+            throw new IllegalArgumentException("The first section must start at 0");
+        }
+        for(int i = 1; i < sectionStarts.length; i++){
+            if(sectionStarts[i] < sectionStarts[i-1] || sectionStarts[i] > data.size()){
+                throw new IllegalArgumentException("Section starts must be sorted and within bounds");
+            }
+        }
+        this.sectionStarts = Arrays.copyOf(sectionStarts, sectionStarts.length);
+        rebuildSectionPositions();
+        notifyDataSetChanged();
+    }
+
+    /**
+     * Shows or hides the section headers. Headers span a full row, see
+     * {@link #getHeaderView(int, android.view.View, android.view.ViewGroup)}.
+     */
+    public void setShowSectionHeaders(boolean showSectionHeaders){
+        if(this.showSectionHeaders == showSectionHeaders){
+            return;
+        }
+        this.showSectionHeaders = showSectionHeaders;
+        rebuildSectionPositions();
+        notifyDataSetChanged();
+    }
+
+    public boolean isShowingSectionHeaders() {
+        return showSectionHeaders;
+    }
+
+    /**
+     * Sets the number of columns of the grid. Needed to pad header rows, this is called by
+     * {@link DynamicGridView} after a layout pass in which its column count changed. Does nothing
+     * if the count is unchanged.
+     */
+    public void setNumColumns(int numColumns){
+        numColumns = Math.max(1, numColumns);
+        if(this.numColumns == numColumns){
+            return;
+        }
+        this.numColumns = numColumns;
+        if(showSectionHeaders){
+            rebuildSectionPositions();
+            notifyDataSetChanged();
+        }
+    }
+
+    public int getNumColumns() {
+        return numColumns;
+    }
+
+    /**
+     * Sets the policy consulted by {@link #canSwap(int, int)}. {@code null} allows any swap between
+     * two items.
+     */
+    public void setSectionPolicy(SectionPolicy sectionPolicy) {
+        this.sectionPolicy = sectionPolicy;
+    }
+
+    public int getSectionCount(){
+        return sectionStarts.length;
+    }
+
+    /**
+     * Finds the section that contains the given position in O(log(sections)).
+     * @return the section index
+     */
+    public int getSectionForPosition(int position){
+        int i = Arrays.binarySearch(sectionPositions, position);
+        if(i < 0){
+            return Math.max(0, -i - 2);
+        }
+        // empty sections without headers share their start with the next one
+        while(i + 1 < sectionPositions.length && sectionPositions[i + 1] == position){
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * @return the position of the first item of the given section
+     */
+    public int getFirstItemPosition(int section){
+        return sectionPositions[section] + getHeaderSpan();
+    }
+
+    /**
+     * @return the position of the last item of the given section, smaller than
+     * {@link #getFirstItemPosition(int)} if the section is empty
+     */
+    public int getLastItemPosition(int section){
+        return getFirstItemPosition(section) + getSectionLength(section) - 1;
+    }
+
+    /**
+     * @return the number of items in the given section
+     */
+    public int getSectionLength(int section){
+        int end = section + 1 < sectionStarts.length ? sectionStarts[section + 1] : data.size();
+        return end - sectionStarts[section];
+    }
+
+    public boolean isHeader(int position){
+        if(!showSectionHeaders){
+            return false;
+        }
+        return position == sectionPositions[getSectionForPosition(position)];
+    }
+
+    public boolean isItem(int position){
+        return getDataIndex(position) != -1;
+    }
+
+    /**
+     * Maps an adapter position to an index in the underlying list. Unlike positions, indexes do
+     * not depend on the number of columns or on whether section headers are shown.
+     * @return the index or -1 if the position is a header, a filler or out of bounds
+     */
+    public int getDataIndex(int position){
+        if(position < 0 || position >= getCount()){
+            return -1;
+        }
+        if(!showSectionHeaders){
+            return position;
+        }
+        int section = getSectionForPosition(position);
+        int offset = position - sectionPositions[section] - numColumns;
+        if(offset < 0 || offset >= getSectionLength(section)){
+            return -1;
+        }
+        return sectionStarts[section] + offset;
+    }
+
+    /**
+     * The inverse of {@link #getDataIndex(int)}
+     * @return the adapter position of the item at the given index of the underlying list
+     */
+    public int getPositionForIndex(int index){
+        if(!showSectionHeaders){
+            return index;
+        }
+        int section = Arrays.binarySearch(sectionStarts, index);
+        if(section < 0){
+            section = -section - 2;
+        }
+        // empty sections share their start with the next one
+        while(section + 1 < sectionStarts.length && sectionStarts[section + 1] == index){
+            section++;
+        }
+        return sectionPositions[section] + numColumns + index - sectionStarts[section];
+    }
+
+    private int getHeaderSpan(){
+        return showSectionHeaders ? numColumns : 0;
+    }
+
+    private int roundUpToRow(int count){
+        return (count + numColumns - 1) / numColumns * numColumns;
+    }
+
+    private void rebuildSectionPositions(){
+        int[] positions = new int[sectionStarts.length];
+        int position = 0;
+        for(int section = 0; section < sectionStarts.length; section++){
+            if(showSectionHeaders){
+                positions[section] = position;
+                position += numColumns + roundUpToRow(getSectionLength(section));
+            }
+            else {
+                positions[section] = sectionStarts[section];
+            }
+        }
+        sectionPositions = positions;
     }
 
     @Override
@@ -73,21 +360,124 @@ public abstract class DynamicGridAdapter<T> extends BaseAdapter {
         return -1;
     }
 
+    @Override
+    public int getViewTypeCount() {
+        return 3;
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        if(isItem(position)){
+            return VIEW_TYPE_ITEM;
+        }
+        return isHeader(position) ? VIEW_TYPE_HEADER : VIEW_TYPE_FILLER;
+    }
+
+    @Override
+    public boolean areAllItemsEnabled() {
+        return !showSectionHeaders;
+    }
+
+    @Override
+    public boolean isEnabled(int position) {
+        return isItem(position);
+    }
+
     @Override
     public View getView(int position, View convertView, ViewGroup parent) {
+        switch (getItemViewType(position)){
+            case VIEW_TYPE_HEADER:
+                return getHeaderView(getSectionForPosition(position), convertView, parent);
+            case VIEW_TYPE_FILLER:
+                return convertView != null ? convertView : new View(parent.getContext());
+        }
+
         View view = getViewItem(position, convertView, parent);
-        view.setVisibility(draggingPosition == position ? View.INVISIBLE : View.VISIBLE);
+        view.setVisibility(isDragging(position) ? View.INVISIBLE : View.VISIBLE);
         view.setAlpha(draggingOver == position ? 0.5f : 1.0f);
         return view;
     }
 
     public abstract View getViewItem(int position, View convertView, ViewGroup parent);
 
+    /**
+     * Returns the header of a section. Only called when section headers are shown. The header is
+     * laid out across the full row by {@link DynamicGridView}.
+     * Override to provide a header, the default implementation returns an empty view.
+     */
+    public View getHeaderView(int section, View convertView, ViewGroup parent){
+        return convertView != null ? convertView : new View(parent.getContext());
+    }
+
+    /**
+     * Called by {@link DynamicGridView} when the system asks the app to trim memory. Adapters that
+     * cache pages of data or views should drop them here. The default implementation does nothing.
+     *
+     * @param level the level passed to {@link android.content.ComponentCallbacks2#onTrimMemory(int)}
+     */
+    public void onTrimMemory(int level){
+    }
+
+    /**
+     * @return an estimate of the memory held by the adapter, in bytes. Counts the item tree and
+     * section arrays but not the items themselves, override to include them.
+     */
+    public long getRetainedBytes(){
+        return data.getRetainedBytes() + (long) (sectionStarts.length + sectionPositions.length) * REFERENCE_BYTES;
+    }
+
     public void setDraggingPosition(int draggingPosition) {
         this.draggingPosition = draggingPosition;
     }
 
+    /**
+     * Sets the positions of the items being dragged by individual pointers. The array is owned by
+     * {@link DynamicGridView} and read on every bind, entries of -1 are ignored.
+     */
+    void setDraggingPositions(int[] draggingPositions) {
+        this.draggingPositions = draggingPositions;
+    }
+
+    private boolean isDragging(int position){
+        if(draggingPosition == position){
+            return true;
+        }
+        if(draggingPositions != null){
+            for(int draggedPosition : draggingPositions){
+                if(draggedPosition == position){
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     public void setDraggingOver(int draggingOver) {
         this.draggingOver = draggingOver;
     }
+
+    /**
+     * Decides which swaps between sections are allowed. Consulted before any data changes.
+     */
+    public interface SectionPolicy {
+
+        /**
+         * @param fromSection the section of the dragged item
+         * @param from the position of the dragged item
+         * @param toSection the section of the target item
+         * @param to the position of the target item
+         * @return true if the items may be swapped
+         */
+        public boolean canSwap(int fromSection, int from, int toSection, int to);
+    }
+
+    /**
+     * A policy that only allows swaps within the same section
+     */
+    public static class SameSectionPolicy implements SectionPolicy {
+        @Override
+        public boolean canSwap(int fromSection, int from, int toSection, int to) {
+            return fromSection == toSection;
+        }
+    }
 }
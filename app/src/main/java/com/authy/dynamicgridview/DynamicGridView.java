@@ -4,14 +4,26 @@ import android.animation.Animator;
 import android.animation.AnimatorSet;
 import android.animation.ObjectAnimator;
 import android.content.ClipData;
+import android.content.ComponentCallbacks2;
 import android.content.Context;
+import android.content.res.Configuration;
 import android.graphics.Canvas;
+import android.graphics.Point;
 import android.graphics.Rect;
+import android.os.AsyncTask;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.SystemClock;
 import android.util.AttributeSet;
 import android.util.Log;
 import android.view.DragEvent;
+import android.view.HapticFeedbackConstants;
+import android.view.KeyEvent;
 import android.view.MotionEvent;
 import android.view.View;
+import android.view.ViewConfiguration;
+import android.view.accessibility.AccessibilityManager;
+import android.view.accessibility.AccessibilityNodeInfo;
 import android.view.animation.AlphaAnimation;
 import android.view.animation.Animation;
 import android.view.animation.TranslateAnimation;
@@ -19,8 +31,13 @@ import android.widget.AdapterView;
 import android.widget.GridView;
 import android.widget.ListAdapter;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Queue;
+import java.util.WeakHashMap;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -37,8 +54,26 @@ public class DynamicGridView extends GridView implements AdapterView.OnItemLongC
     public final static float SCROLL_BOUND_DOWN = 0.80f;
     public final static int SCROLL_SPEED = 8;
 
+    /**
+     * Maximum number of simultaneous pointer drags. Pointers with a larger id are ignored.
+     */
+    public final static int MAX_POINTER_DRAGS = 10;
+
+    private final static int[] MOVE_ACTION_IDS = {
+            R.id.dgv_action_move_up, R.id.dgv_action_move_down,
+            R.id.dgv_action_move_left, R.id.dgv_action_move_right,
+            R.id.dgv_action_move_to_start, R.id.dgv_action_move_to_end
+    };
+
+    private final static int[] MOVE_ACTION_LABELS = {
+            R.string.dgv_action_move_up, R.string.dgv_action_move_down,
+            R.string.dgv_action_move_left, R.string.dgv_action_move_right,
+            R.string.dgv_action_move_to_start, R.string.dgv_action_move_to_end
+    };
+
     private OnDragListener onDragListener;
     private OnDropListener onDropListener;
+    private OnItemLongClickListener onItemLongClickListener;
 
     private int currentlyDraggedOverPosition;
     private int lastDraggedOverPosition;
@@ -46,8 +81,72 @@ public class DynamicGridView extends GridView implements AdapterView.OnItemLongC
     private Rect mTouchFrame;
 
     private int isAnimationRunning;
+    /** swaps and moves whose cells are animated once they are laid out */
+    private List<SwapHistory.GridSwapOperation> pendingAnimations;
     private boolean pendingDrop;
 
+    private AccessibilityDelegate itemAccessibilityDelegate;
+
+    private DragStyle dragStyle;
+
+    private SwapHistory swapHistory;
+    private DropCommitter dropCommitter;
+
+    private ComponentCallbacks2 trimMemoryCallbacks;
+
+    // per pointer drag state, indexed by pointer id
+    private boolean multiTouchDragEnabled;
+
+    private boolean dpadReorderEnabled;
+    /** data index of the item picked up with the D-pad, -1 if none */
+    private int pickedUpIndex;
+    private int pickUpStartIndex;
+    private int pickedUpDataVersion;
+    /** the moves made since the item was picked up, undone if the pick up is cancelled */
+    private SwapHistory pickUpHistory;
+    private int consumedKeyUp;
+    /** position to move accessibility focus to once it has been laid out, -1 if none */
+    private int pendingAccessibilityFocus;
+    private final int[] pointerDragStart = new int[MAX_POINTER_DRAGS];
+    private final int[] pointerDragPosition = new int[MAX_POINTER_DRAGS];
+    private final float[] pointerX = new float[MAX_POINTER_DRAGS];
+    private final float[] pointerY = new float[MAX_POINTER_DRAGS];
+    private final long[] pointerDownTime = new long[MAX_POINTER_DRAGS];
+    private final DragStyle.Shadow[] pointerShadows = new DragStyle.Shadow[MAX_POINTER_DRAGS];
+
+    /** views handed to the recycler, weakly held so they can still be collected */
+    private final WeakHashMap<View, Boolean> scrapViews = new WeakHashMap<View, Boolean>();
+    private RecyclerListener recyclerListener;
+    private int pointerDragCount;
+    private int touchSlop;
+    private boolean notifyPending;
+
+    private final Runnable notifyRunnable = new Runnable() {
+        @Override
+        public void run() {
+            notifyPending = false;
+            if(getAdapter() != null){
+                getAdapter().notifyDataSetChanged();
+            }
+        }
+    };
+
+    private final Runnable promoteRunnable = new Runnable() {
+        @Override
+        public void run() {
+            promotePendingPointers();
+        }
+    };
+
+    private final Runnable syncColumnsRunnable = new Runnable() {
+        @Override
+        public void run() {
+            if(getAdapter() != null && getNumColumns() > 0){
+                getAdapter().setNumColumns(getNumColumns());
+            }
+        }
+    };
+
     public DynamicGridView(Context context) {
         super(context);
         init();
@@ -66,25 +165,692 @@ public class DynamicGridView extends GridView implements AdapterView.OnItemLongC
     private void init() {
         onDragListener = new DefOnDragListener();
         onDropListener = new DefOnDropListener();
-        setOnItemLongClickListener(this);
+        super.setOnItemLongClickListener(this);
         setOnDragListener(this);
+        super.setRecyclerListener(new RecyclerListener() {
+            @Override
+            public void onMovedToScrapHeap(View view) {
+                scrapViews.put(view, Boolean.TRUE);
+                if(recyclerListener != null){
+                    recyclerListener.onMovedToScrapHeap(view);
+                }
+            }
+        });
 
         currentlyDraggedOverPosition = -1;
         isAnimationRunning = 0;
+        pendingAnimations = new ArrayList<SwapHistory.GridSwapOperation>();
         pendingDrop = false;
+        dragStyle = DragStyle.DEFAULT;
+
+        swapHistory = new SwapHistory(new SwapHistory.Swapper() {
+            @Override
+            public void swapItems(int pos1, int pos2) {
+                getAdapter().swapIndexes(pos1, pos2);
+            }
+
+            @Override
+            public void moveItem(int from, int to) {
+                getAdapter().moveIndex(from, to);
+            }
+        });
+        dropCommitter = new DropCommitter(this, swapHistory);
+
+        dpadReorderEnabled = false;
+        pickedUpIndex = -1;
+        consumedKeyUp = KeyEvent.KEYCODE_UNKNOWN;
+        pendingAccessibilityFocus = -1;
+        pickUpHistory = new SwapHistory(new SwapHistory.Swapper() {
+            @Override
+            public void swapItems(int pos1, int pos2) {
+                DynamicGridAdapter<?> adapter = getAdapter();
+                int first = adapter.getPositionForIndex(pos1);
+                int second = adapter.getPositionForIndex(pos2);
+                adapter.swap(first, second);
+                recordSwap(first, second);
+                queueAnimation(first, second, false);
+                refreshPositions(Math.min(first, second), Math.max(first, second));
+            }
+
+            @Override
+            public void moveItem(int from, int to) {
+                DynamicGridAdapter<?> adapter = getAdapter();
+                int first = adapter.getPositionForIndex(from);
+                int second = adapter.getPositionForIndex(to);
+                adapter.move(first, second);
+                recordMove(first, second);
+                queueAnimation(first, second, true);
+                refreshPositions(Math.min(first, second), Math.max(first, second));
+            }
+        });
+
+        multiTouchDragEnabled = false;
+        Arrays.fill(pointerDragStart, -1);
+        Arrays.fill(pointerDragPosition, -1);
+        pointerDragCount = 0;
+        touchSlop = ViewConfiguration.get(getContext()).getScaledTouchSlop();
+
+        if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.ICE_CREAM_SANDWICH){
+            itemAccessibilityDelegate = new ItemAccessibilityDelegate();
+            trimMemoryCallbacks = new TrimMemoryCallbacks();
+        }
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        if(trimMemoryCallbacks != null){
+            getContext().registerComponentCallbacks(trimMemoryCallbacks);
+        }
     }
 
     @Override
-    public boolean onTouchEvent(MotionEvent event) {
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        removeCallbacks(syncColumnsRunnable);
+        endAllPointerDrags();
+        resetPickUp();
+        removeCallbacks(notifyRunnable);
+        notifyPending = false;
+        if(trimMemoryCallbacks != null){
+            getContext().unregisterComponentCallbacks(trimMemoryCallbacks);
+        }
+    }
+
+    /**
+     * Releases memory according to the given trim level. Called automatically on Ice Cream
+     * Sandwich and above, can be called manually on older platforms.
+     * Each level also does everything done at the levels below it:
+     * <ul>
+     * <li>TRIM_MEMORY_RUNNING_MODERATE: pending drops are committed without waiting for more
+     * drops to coalesce, so the committed history can be discarded</li>
+     * <li>TRIM_MEMORY_RUNNING_LOW: recycled (scrap) views are dropped</li>
+     * <li>TRIM_MEMORY_RUNNING_CRITICAL: the swap history is compacted to its net permutation</li>
+     * </ul>
+     * The level is always forwarded to {@link DynamicGridAdapter#onTrimMemory(int)} so the
+     * adapter can drop cached pages.
+     *
+     * @param level one of the ComponentCallbacks2 TRIM_MEMORY_* levels
+     */
+    public void trimMemory(int level){
+        log("trimming memory at level %d", level);
+        if(getAdapter() != null){
+            getAdapter().onTrimMemory(level);
+        }
+        if(isDragging()){
+            return;
+        }
 
+        if(level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE){
+            dropCommitter.commit();
+        }
+        if(level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW){
+            releaseScrapViews();
+        }
+        if(level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL
+                && !dropCommitter.isCommitInFlight()){
+            swapHistory.compact();
+        }
+    }
 
+    /**
+     * Empties the recycler and lays the visible items out again from the adapter, keeping the
+     * scroll position. reclaimViews() only copies the views out, the recycler is only cleared
+     * when the adapter is set. GridView's setAdapter is called directly, the reorder history
+     * belongs to the same adapter and must survive.
+     */
+    private void releaseScrapViews(){
+        if(getAdapter() == null){
+            return;
+        }
+        int first = getFirstVisiblePosition();
+        View firstChild = getChildAt(0);
+        final int top = firstChild == null ? 0 : firstChild.getTop() - getPaddingTop();
+        super.setAdapter(getAdapter());
+        scrapViews.clear();
 
-        return super.onTouchEvent(event);
+        if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP){
+            setSelectionFromTop(first, top);
+        }
+        else {
+            // GridView has no setSelectionFromTop before Lollipop, scroll the rest once laid out
+            setSelection(first);
+            if(top != 0){
+                post(new Runnable() {
+                    @Override
+                    public void run() {
+                        smoothScrollBy(-top, 0);
+                    }
+                });
+            }
+        }
     }
 
+    /**
+     * @return an estimate of the memory held by the given subsystem, in bytes. The size of a
+     * view cannot be measured, see {@link #getScrapViewCount()} for the recycler.
+     */
+    public long getRetainedBytes(Subsystem subsystem){
+        switch (subsystem){
+            case swapHistory:
+                return swapHistory.getRetainedBytes();
+            case adapter:
+                return getAdapter() == null ? 0 : getAdapter().getRetainedBytes();
+            case dragShadow:
+                long bytes = 0;
+                for(DragStyle.Shadow shadow : pointerShadows){
+                    if(shadow != null){
+                        bytes += shadow.getByteCount();
+                    }
+                }
+                return bytes;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * @return the number of detached views handed to the recycler for reuse, 0 right after
+     * {@link #trimMemory(int)} released them. Views the recycler prunes on its own are not
+     * reported to the grid, they are counted until they are garbage collected.
+     */
+    public int getScrapViewCount(){
+        int count = 0;
+        for(View view : scrapViews.keySet()){
+            // reused views are attached again
+            if(view != null && view.getParent() == null){
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * The listener is chained, scrap views are also tracked by the grid, see
+     * {@link #getScrapViewCount()}
+     */
     @Override
-    public boolean onItemLongClick(AdapterView<?> parent, View view, int position, long id) {
+    public void setRecyclerListener(RecyclerListener listener) {
+        this.recyclerListener = listener;
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int l, int t, int r, int b) {
+        super.onLayout(changed, l, t, r, b);
+        setupChildren();
+
+        // the column count is only known after measuring. Notifying the adapter from within a
+        // layout pass would request another one, so the update is posted instead.
+        DynamicGridAdapter<?> adapter = getAdapter();
+        if(adapter != null && getNumColumns() > 0 && adapter.getNumColumns() != getNumColumns()){
+            removeCallbacks(syncColumnsRunnable);
+            post(syncColumnsRunnable);
+        }
+    }
+
+    /**
+     * Called by AbsListView whenever children are added while scrolling, which bypasses
+     * {@link #onLayout(boolean, int, int, int, int)}.
+     */
+    @Override
+    protected void onScrollChanged(int l, int t, int oldl, int oldt) {
+        super.onScrollChanged(l, t, oldl, oldt);
+        setupChildren();
+    }
+
+    private void setupChildren(){
+        if(itemAccessibilityDelegate != null){
+            for(int i = 0; i < getChildCount(); i++){
+                getChildAt(i).setAccessibilityDelegate(itemAccessibilityDelegate);
+            }
+        }
+        layoutSectionHeaders();
+        if(!pendingAnimations.isEmpty() && !isLayoutRequested()){
+            startPendingAnimations();
+        }
+        if(pendingAccessibilityFocus != -1 && !isLayoutRequested()){
+            int position = pendingAccessibilityFocus;
+            pendingAccessibilityFocus = -1;
+            requestAccessibilityFocus(position);
+        }
+    }
+
+    /**
+     * GridView lays every child out in a single column. Section headers are re-laid out across
+     * the whole row, the rest of the row is filled with empty filler cells by the adapter.
+     */
+    private void layoutSectionHeaders(){
+        DynamicGridAdapter<?> adapter = getAdapter();
+        if(adapter == null || !adapter.isShowingSectionHeaders()){
+            return;
+        }
+
+        final int first = getFirstVisiblePosition();
+        final int width = getWidth() - getPaddingLeft() - getPaddingRight();
+        for(int i = 0; i < getChildCount(); i++){
+            if(!adapter.isHeader(first + i)){
+                continue;
+            }
+            View header = getChildAt(i);
+            if(header.getLeft() == getPaddingLeft() && header.getWidth() == width){
+                continue;
+            }
+            header.measure(MeasureSpec.makeMeasureSpec(width, MeasureSpec.EXACTLY),
+                    MeasureSpec.makeMeasureSpec(header.getMeasuredHeight(), MeasureSpec.EXACTLY));
+            header.layout(getPaddingLeft(), header.getTop(),
+                    getPaddingLeft() + width, header.getTop() + header.getMeasuredHeight());
+        }
+    }
+
+    /**
+     * Holding ALT while pressing a D-pad direction moves the selected item in that direction,
+     * ALT + MOVE_HOME / MOVE_END moves it to the start / end of its section. Keyboards without
+     * ALT, such as TV remotes, can use {@link #setDpadReorderEnabled(boolean)}.
+     */
+    @Override
+    public boolean onKeyDown(int keyCode, KeyEvent event) {
+        if(pickedUpIndex != -1 && onPickedUpKeyDown(keyCode, event)){
+            consumedKeyUp = keyCode;
+            return true;
+        }
+        if(dpadReorderEnabled && isConfirmKey(keyCode) && !event.isAltPressed()
+                && event.getRepeatCount() == 0){
+            int position = getSelectedItemPosition();
+            if(position != INVALID_POSITION && getAdapter().isItem(position)){
+                pickUp(position);
+                consumedKeyUp = keyCode;
+                return true;
+            }
+        }
+        if(event.isAltPressed()){
+            int actionId = getMoveActionForKey(keyCode);
+            int position = getSelectedItemPosition();
+            if(actionId != -1 && position != INVALID_POSITION && performMoveAction(position, actionId)){
+                return true;
+            }
+        }
+        return super.onKeyDown(keyCode, event);
+    }
+
+    @Override
+    public boolean onKeyUp(int keyCode, KeyEvent event) {
+        // the matching key down picked up, moved or dropped an item, it must not also click it
+        if(keyCode == consumedKeyUp){
+            consumedKeyUp = KeyEvent.KEYCODE_UNKNOWN;
+            return true;
+        }
+        return super.onKeyUp(keyCode, event);
+    }
+
+    /**
+     * Enables reordering with a D-pad only: pressing center or enter picks up the selected item,
+     * the D-pad moves it and pressing center or enter again drops it. BACK puts the item back
+     * where it was picked up. While enabled, center and enter no longer click items.
+     */
+    public void setDpadReorderEnabled(boolean dpadReorderEnabled) {
+        if(!dpadReorderEnabled && pickedUpIndex != -1){
+            dropPickedUpItem();
+        }
+        this.dpadReorderEnabled = dpadReorderEnabled;
+    }
+
+    public boolean isDpadReorderEnabled() {
+        return dpadReorderEnabled;
+    }
+
+    private static boolean isConfirmKey(int keyCode){
+        return keyCode == KeyEvent.KEYCODE_DPAD_CENTER || keyCode == KeyEvent.KEYCODE_ENTER;
+    }
+
+    /**
+     * Handles a key while an item is picked up
+     * @return true if the key was consumed
+     */
+    private boolean onPickedUpKeyDown(int keyCode, KeyEvent event){
+        if(getAdapter() == null || getAdapter().getDataVersion() != pickedUpDataVersion){
+            // the items were replaced, there is nothing left to move
+            resetPickUp();
+            return false;
+        }
+        if(keyCode == KeyEvent.KEYCODE_BACK){
+            cancelPickUp();
+            return true;
+        }
+        if(isConfirmKey(keyCode)){
+            if(event.getRepeatCount() == 0){
+                dropPickedUpItem();
+            }
+            return true;
+        }
+
+        int actionId = getMoveActionForKey(keyCode);
+        if(actionId == -1){
+            return false;
+        }
+        DynamicGridAdapter<?> adapter = getAdapter();
+        int position = adapter.getPositionForIndex(pickedUpIndex);
+        int target = getMoveTarget(position, actionId);
+        if(target == INVALID_POSITION || !canPerformMoveAction(position, actionId)){
+            // consumed anyway, the selection stays on the picked up item
+            return true;
+        }
+
+        adapter.setDraggingOver(target);
+        if(!performMoveAction(position, actionId)){
+            adapter.setDraggingOver(position);
+            return true;
+        }
+        int targetIndex = adapter.getDataIndex(target);
+        if(actionId == R.id.dgv_action_move_to_start || actionId == R.id.dgv_action_move_to_end){
+            pickUpHistory.pushMove(pickedUpIndex, targetIndex);
+        }
+        else {
+            pickUpHistory.push(pickedUpIndex, targetIndex);
+        }
+        pickedUpIndex = targetIndex;
+        return true;
+    }
+
+    private void pickUp(int position){
+        DynamicGridAdapter<?> adapter = getAdapter();
+        pickedUpIndex = adapter.getDataIndex(position);
+        pickUpStartIndex = pickedUpIndex;
+        pickedUpDataVersion = adapter.getDataVersion();
+        adapter.setDraggingOver(position);
+        refreshPositions(position, position);
+        onDragListener.onDragStarted(position);
+        announce(getContext().getString(R.string.dgv_announce_picked_up));
+    }
+
+    private void dropPickedUpItem(){
+        if(getAdapter() == null || getAdapter().getDataVersion() != pickedUpDataVersion){
+            resetPickUp();
+            return;
+        }
+        int position = getAdapter().getPositionForIndex(pickedUpIndex);
+        resetPickUp();
+        refreshPositions(position, position);
+        dropCommitter.onDrop();
+        announce(getContext().getString(R.string.dgv_announce_dropped));
+    }
+
+    /**
+     * Undoes every move made since the item was picked up
+     */
+    private void cancelPickUp(){
+        int position = getAdapter().getPositionForIndex(pickedUpIndex);
+        pickedUpIndex = -1;
+        getAdapter().setDraggingOver(-1);
+        refreshPositions(position, position);
+        boolean moved = pickUpHistory.size() > 0;
+        pickUpHistory.reverseOps();
+        if(moved){
+            selectMovedItem(getAdapter().getPositionForIndex(pickUpStartIndex));
+            dropCommitter.onDrop();
+        }
+        announce(getContext().getString(R.string.dgv_announce_cancelled));
+    }
+
+    private void resetPickUp(){
+        pickedUpIndex = -1;
+        pickUpHistory.clear();
+        if(getAdapter() != null){
+            getAdapter().setDraggingOver(-1);
+        }
+    }
+
+    @Override
+    protected void onFocusChanged(boolean gainFocus, int direction, Rect previouslyFocusedRect) {
+        super.onFocusChanged(gainFocus, direction, previouslyFocusedRect);
+        if(!gainFocus && pickedUpIndex != -1){
+            dropPickedUpItem();
+        }
+    }
+
+    /**
+     * Enables concurrent drags: every pointer that long-presses an item drags it on its own.
+     * Drags are tracked from touch events instead of the platform drag and drop, which only
+     * supports one drag at a time. While enabled the grid does not start drags from item long
+     * clicks, so a long press starts exactly one drag, and every long click goes straight to the
+     * listener set with {@link #setOnItemLongClickListener(OnItemLongClickListener)}.
+     */
+    public void setMultiTouchDragEnabled(boolean multiTouchDragEnabled) {
+        if(!multiTouchDragEnabled){
+            endAllPointerDrags();
+        }
+        this.multiTouchDragEnabled = multiTouchDragEnabled;
+        super.setOnItemLongClickListener(multiTouchDragEnabled ? onItemLongClickListener : this);
+    }
+
+    /**
+     * The grid starts drags from item long clicks, so the listener is chained: it receives long
+     * clicks on section headers and fillers, and every long click while multi-touch drags are
+     * enabled, see {@link #setMultiTouchDragEnabled(boolean)}.
+     */
+    @Override
+    public void setOnItemLongClickListener(OnItemLongClickListener listener) {
+        this.onItemLongClickListener = listener;
+        if(multiTouchDragEnabled){
+            super.setOnItemLongClickListener(listener);
+        }
+    }
+
+    public boolean isMultiTouchDragEnabled() {
+        return multiTouchDragEnabled;
+    }
 
+    @Override
+    public boolean dispatchTouchEvent(MotionEvent event) {
+        if(pickedUpIndex != -1 && event.getActionMasked() == MotionEvent.ACTION_DOWN){
+            dropPickedUpItem();
+        }
+        if(!multiTouchDragEnabled){
+            return super.dispatchTouchEvent(event);
+        }
+
+        boolean wasDragging = pointerDragCount > 0;
+        trackPointers(event);
+        if(wasDragging || pointerDragCount > 0){
+            return true;
+        }
+        return super.dispatchTouchEvent(event);
+    }
+
+    private void trackPointers(MotionEvent event){
+        int index = event.getActionIndex();
+        int id = event.getPointerId(index);
+
+        switch (event.getActionMasked()){
+            case MotionEvent.ACTION_DOWN:
+            case MotionEvent.ACTION_POINTER_DOWN:
+                if(id < MAX_POINTER_DRAGS){
+                    pointerX[id] = event.getX(index);
+                    pointerY[id] = event.getY(index);
+                    pointerDownTime[id] = event.getEventTime();
+                    postDelayed(promoteRunnable, ViewConfiguration.getLongPressTimeout());
+                }
+                break;
+            case MotionEvent.ACTION_MOVE:
+                for(int i = 0; i < event.getPointerCount(); i++){
+                    int pointerId = event.getPointerId(i);
+                    if(pointerId >= MAX_POINTER_DRAGS){
+                        continue;
+                    }
+                    float x = event.getX(i);
+                    float y = event.getY(i);
+                    if(pointerDragPosition[pointerId] != -1){
+                        pointerX[pointerId] = x;
+                        pointerY[pointerId] = y;
+                    }
+                    else if(Math.abs(x - pointerX[pointerId]) > touchSlop
+                            || Math.abs(y - pointerY[pointerId]) > touchSlop){
+                        // moved before the long press, this pointer is scrolling
+                        pointerDownTime[pointerId] = 0;
+                    }
+                }
+                updatePointerDrags();
+                break;
+            case MotionEvent.ACTION_POINTER_UP:
+                if(id < MAX_POINTER_DRAGS){
+                    endPointerDrag(id);
+                }
+                break;
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_CANCEL:
+                endAllPointerDrags();
+                break;
+        }
+    }
+
+    /**
+     * Starts a drag for every pointer that has been held still for the long press timeout
+     */
+    private void promotePendingPointers(){
+        long now = SystemClock.uptimeMillis();
+        long timeout = ViewConfiguration.getLongPressTimeout();
+        for(int id = 0; id < MAX_POINTER_DRAGS; id++){
+            if(pointerDownTime[id] != 0 && now - pointerDownTime[id] >= timeout){
+                pointerDownTime[id] = 0;
+                startPointerDrag(id);
+            }
+        }
+    }
+
+    private void startPointerDrag(int id){
+        if(getAdapter() == null){
+            return;
+        }
+        int pos = pointToPosition((int)pointerX[id], (int)pointerY[id]);
+        if(pos == INVALID_POSITION || !getAdapter().isItem(pos) || isHeldByPointer(pos)
+                || currentlyDraggedOverPosition != -1){
+            return;
+        }
+
+        if(pointerDragCount == 0){
+            // from now on this view consumes every event, cancel scrolling and pending clicks
+            long now = SystemClock.uptimeMillis();
+            MotionEvent cancel = MotionEvent.obtain(now, now, MotionEvent.ACTION_CANCEL, 0, 0, 0);
+            super.dispatchTouchEvent(cancel);
+            cancel.recycle();
+            if(getParent() != null){
+                getParent().requestDisallowInterceptTouchEvent(true);
+            }
+        }
+
+        // the cell is rebound as soon as its item moves, so the shadow is a snapshot
+        pointerShadows[id] = dragStyle.createShadow(getChildAt(pos - getFirstVisiblePosition()), true);
+        pointerDragStart[id] = pos;
+        pointerDragPosition[id] = pos;
+        pointerDragCount++;
+        performHapticFeedback(HapticFeedbackConstants.LONG_PRESS);
+        onDragListener.onDragStarted(pos);
+        scheduleNotify();
+    }
+
+    /**
+     * Moves every dragged item under its pointer. Pointers are handled in ascending id order and a
+     * cell held by another drag is never a valid target, so when two pointers reach for the same
+     * cell the one with the lowest id wins. The adapter is notified at most once per frame.
+     */
+    private void updatePointerDrags(){
+        boolean changed = false;
+        for(int id = 0; id < MAX_POINTER_DRAGS; id++){
+            int current = pointerDragPosition[id];
+            if(current == -1){
+                continue;
+            }
+            int pos = pointToPosition((int)pointerX[id], (int)pointerY[id]);
+            if(pos == INVALID_POSITION || pos == current || isHeldByPointer(pos)
+                    || !getAdapter().canSwap(current, pos)){
+                continue;
+            }
+            getAdapter().swap(current, pos);
+            recordSwap(current, pos);
+            queueAnimation(current, pos, false);
+            pointerDragPosition[id] = pos;
+            changed = true;
+        }
+
+        if(changed){
+            scheduleNotify();
+        }
+        invalidate();
+    }
+
+    private void endPointerDrag(int id){
+        pointerDownTime[id] = 0;
+        int to = pointerDragPosition[id];
+        if(to == -1){
+            return;
+        }
+
+        int from = pointerDragStart[id];
+        pointerDragStart[id] = -1;
+        pointerDragPosition[id] = -1;
+        pointerDragCount--;
+        pointerShadows[id].recycle();
+        pointerShadows[id] = null;
+        onDropListener.onDrop(from, to);
+        scheduleNotify();
+        invalidate();
+        if(pointerDragCount == 0){
+            dropCommitter.onDrop();
+        }
+    }
+
+    private void endAllPointerDrags(){
+        removeCallbacks(promoteRunnable);
+        for(int id = 0; id < MAX_POINTER_DRAGS; id++){
+            endPointerDrag(id);
+        }
+    }
+
+    private boolean isHeldByPointer(int position){
+        for(int id = 0; id < MAX_POINTER_DRAGS; id++){
+            if(pointerDragPosition[id] == position){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Coalesces adapter notifications so that any number of swaps in one frame cost one rebind
+     */
+    private void scheduleNotify(){
+        if(notifyPending || getAdapter() == null){
+            return;
+        }
+        notifyPending = true;
+        getAdapter().setDraggingPositions(pointerDragPosition);
+        if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN){
+            postOnAnimation(notifyRunnable);
+        }
+        else {
+            post(notifyRunnable);
+        }
+    }
+
+    @Override
+    protected void dispatchDraw(Canvas canvas) {
+        super.dispatchDraw(canvas);
+        if(pointerDragCount == 0){
+            return;
+        }
+
+        for(int id = 0; id < MAX_POINTER_DRAGS; id++){
+            if(pointerShadows[id] != null){
+                pointerShadows[id].draw(canvas, pointerX[id], pointerY[id]);
+            }
+        }
+    }
+
+    @Override
+    public boolean onItemLongClick(AdapterView<?> parent, View view, int position, long id) {
+        if(!getAdapter().isItem(position)){
+            return onItemLongClickListener != null
+                    && onItemLongClickListener.onItemLongClick(parent, view, position, id);
+        }
         startDragAt(position, view);
         return true;
     }
@@ -126,7 +892,7 @@ public class DynamicGridView extends GridView implements AdapterView.OnItemLongC
         lastDraggedOverPosition = position;
         getAdapter().setDraggingPosition(position);
         ClipData clipData = ClipData.newPlainText("label","text");
-        DragShadowBuilder shadowBuilder = new DragShadowBuilder(view);
+        StyledDragShadowBuilder shadowBuilder = new StyledDragShadowBuilder(view, dragStyle);
         view.startDrag(clipData, shadowBuilder, null,0);
         getAdapter().notifyDataSetChanged();
     }
@@ -139,12 +905,17 @@ public class DynamicGridView extends GridView implements AdapterView.OnItemLongC
         getAdapter().setDraggingOver(-1);
         getAdapter().notifyDataSetChanged();
         pendingDrop = false;
+        dropCommitter.onDrop();
     }
 
     private void updateDrag(DragEvent event){
         int pos = pointToPosition((int)event.getX(), (int)event.getY());
 
         if(pos != INVALID_POSITION && pos != currentlyDraggedOverPosition ){
+            // rejected targets are ignored before any state or data changes
+            if(!getAdapter().canSwap(currentlyDraggedOverPosition, pos)){
+                return;
+            }
             lastDraggedOverPosition = currentlyDraggedOverPosition;
             currentlyDraggedOverPosition = pos;
             getAdapter().setDraggingOver(pos);
@@ -160,10 +931,335 @@ public class DynamicGridView extends GridView implements AdapterView.OnItemLongC
         log("Moved  " + direction + " from " + current + " to " + last);
 
         getAdapter().swap(current, last);
+        recordSwap(current, last);
+        queueAnimation(current, last, false);
         getAdapter().setDraggingPosition(current);
         getAdapter().notifyDataSetChanged();
     }
 
+    /**
+     * Moves the item at {@code position} one cell in the given direction by swapping it with its
+     * neighbour. Only the two affected cells are rebound.
+     *
+     * @param position the position of the item that will be moved
+     * @param direction the direction in which the item will be moved
+     * @return true if the item was moved, false if there is no item in that direction or the
+     * adapter does not allow the swap
+     */
+    public boolean moveItem(int position, SwapDirection direction){
+        int target = getNeighbourPosition(position, direction);
+        if(target == INVALID_POSITION || !getAdapter().canSwap(position, target)){
+            return false;
+        }
+        getAdapter().swap(position, target);
+        recordSwap(position, target);
+        queueAnimation(position, target, false);
+        onItemMoved(position, target, position, target);
+        return true;
+    }
+
+    /**
+     * Moves the item at {@code position} to {@code target}, shifting the items in between.
+     * Only the visible cells between both positions are rebound and the data change takes
+     * O(log n), see {@link DynamicGridAdapter#move(int, int)}.
+     *
+     * @param position the position of the item that will be moved
+     * @param target the position the item will occupy after the move
+     * @return true if the item was moved, false if the adapter does not allow the move
+     */
+    public boolean moveItemTo(int position, int target){
+        if(position == target || !getAdapter().canMove(position, target)){
+            return false;
+        }
+        getAdapter().move(position, target);
+        recordMove(position, target);
+        queueAnimation(position, target, true);
+        onItemMoved(position, target, Math.min(position, target), Math.max(position, target));
+        return true;
+    }
+
+    /**
+     * Records a swap in the history while a {@link ReorderPersister} is set. The history stores
+     * data indexes so it stays valid when the column count or the section headers change.
+     */
+    private void recordSwap(int pos1, int pos2){
+        if(dropCommitter.isRecording()){
+            swapHistory.push(getAdapter().getDataIndex(pos1), getAdapter().getDataIndex(pos2));
+        }
+    }
+
+    /**
+     * Same as {@link #recordSwap(int, int)} for a move
+     */
+    private void recordMove(int from, int to){
+        if(dropCommitter.isRecording()){
+            swapHistory.pushMove(getAdapter().getDataIndex(from), getAdapter().getDataIndex(to));
+        }
+    }
+
+    /**
+     * Moves the item at {@code position} to the start of its section
+     */
+    public boolean moveItemToStart(int position){
+        DynamicGridAdapter<?> adapter = getAdapter();
+        return moveItemTo(position, adapter.getFirstItemPosition(adapter.getSectionForPosition(position)));
+    }
+
+    /**
+     * Moves the item at {@code position} to the end of its section
+     */
+    public boolean moveItemToEnd(int position){
+        DynamicGridAdapter<?> adapter = getAdapter();
+        return moveItemTo(position, adapter.getLastItemPosition(adapter.getSectionForPosition(position)));
+    }
+
+    private boolean performMoveAction(int position, int actionId){
+        if(actionId == R.id.dgv_action_move_to_start){
+            return moveItemToStart(position);
+        }
+        else if(actionId == R.id.dgv_action_move_to_end){
+            return moveItemToEnd(position);
+        }
+        SwapDirection direction = getMoveDirection(actionId);
+        return direction != null && moveItem(position, direction);
+    }
+
+    private boolean canPerformMoveAction(int position, int actionId){
+        DynamicGridAdapter<?> adapter = getAdapter();
+        int target = getMoveTarget(position, actionId);
+        if(target == INVALID_POSITION || target == position){
+            return false;
+        }
+        if(actionId == R.id.dgv_action_move_to_start || actionId == R.id.dgv_action_move_to_end){
+            return adapter.canMove(position, target);
+        }
+        return adapter.canSwap(position, target);
+    }
+
+    /**
+     * @return the position the item at {@code position} would occupy after the given move
+     * action, or INVALID_POSITION
+     */
+    private int getMoveTarget(int position, int actionId){
+        DynamicGridAdapter<?> adapter = getAdapter();
+        if(actionId == R.id.dgv_action_move_to_start){
+            return adapter.getFirstItemPosition(adapter.getSectionForPosition(position));
+        }
+        else if(actionId == R.id.dgv_action_move_to_end){
+            return adapter.getLastItemPosition(adapter.getSectionForPosition(position));
+        }
+        SwapDirection direction = getMoveDirection(actionId);
+        return direction == null ? INVALID_POSITION : getNeighbourPosition(position, direction);
+    }
+
+    private static SwapDirection getMoveDirection(int actionId){
+        if(actionId == R.id.dgv_action_move_up){
+            return SwapDirection.up;
+        }
+        else if(actionId == R.id.dgv_action_move_down){
+            return SwapDirection.down;
+        }
+        else if(actionId == R.id.dgv_action_move_left){
+            return SwapDirection.left;
+        }
+        else if(actionId == R.id.dgv_action_move_right){
+            return SwapDirection.right;
+        }
+        return null;
+    }
+
+    private static int getMoveActionForKey(int keyCode){
+        switch (keyCode){
+            case KeyEvent.KEYCODE_DPAD_UP:
+                return R.id.dgv_action_move_up;
+            case KeyEvent.KEYCODE_DPAD_DOWN:
+                return R.id.dgv_action_move_down;
+            case KeyEvent.KEYCODE_DPAD_LEFT:
+                return R.id.dgv_action_move_left;
+            case KeyEvent.KEYCODE_DPAD_RIGHT:
+                return R.id.dgv_action_move_right;
+            case KeyEvent.KEYCODE_MOVE_HOME:
+                return R.id.dgv_action_move_to_start;
+            case KeyEvent.KEYCODE_MOVE_END:
+                return R.id.dgv_action_move_to_end;
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * @return the position of the cell next to {@code position} in the given direction or
+     * {@link #INVALID_POSITION} if there is none
+     */
+    private int getNeighbourPosition(int position, SwapDirection direction){
+        int count = getCount();
+        int columns = Math.max(1, getNumColumns());
+        if(position < 0 || position >= count){
+            return INVALID_POSITION;
+        }
+
+        int target;
+        switch (direction){
+            case left:
+                target = position % columns == 0 ? INVALID_POSITION : position - 1;
+                break;
+            case right:
+                target = position % columns == columns - 1 ? INVALID_POSITION : position + 1;
+                break;
+            case up:
+                target = position - columns;
+                break;
+            case down:
+                target = position + columns;
+                break;
+            default:
+                target = INVALID_POSITION;
+        }
+        return target >= 0 && target < count ? target : INVALID_POSITION;
+    }
+
+    private void onItemMoved(int from, int to, int firstChanged, int lastChanged){
+        log("Moved item from %d to %d", from, to);
+        refreshPositions(firstChanged, lastChanged);
+        selectMovedItem(to);
+        requestAccessibilityFocus(to);
+        onDropListener.onDrop(from, to);
+        dropCommitter.onDrop();
+
+        DynamicGridAdapter<?> adapter = getAdapter();
+        int section = adapter.getSectionForPosition(to);
+        int index = to - adapter.getFirstItemPosition(section);
+        announce(getContext().getString(R.string.dgv_announce_moved,
+                index + 1, adapter.getSectionLength(section)));
+    }
+
+    private void announce(String text){
+        if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN){
+            announceForAccessibility(text);
+        }
+    }
+
+    /**
+     * Moves accessibility focus to the item at the given position, so TalkBack keeps following the
+     * moved item. Selection does not help there, accessibility services run in touch mode. If the
+     * item is off screen, focus is moved once it has been laid out.
+     */
+    private void requestAccessibilityFocus(int position){
+        if(Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN){
+            return;
+        }
+        AccessibilityManager manager = (AccessibilityManager) getContext()
+                .getSystemService(Context.ACCESSIBILITY_SERVICE);
+        if(manager == null || !manager.isEnabled()){
+            return;
+        }
+        View child = getChildAt(position - getFirstVisiblePosition());
+        if(child == null || isLayoutRequested()){
+            pendingAccessibilityFocus = position;
+            return;
+        }
+        pendingAccessibilityFocus = -1;
+        child.performAccessibilityAction(AccessibilityNodeInfo.ACTION_ACCESSIBILITY_FOCUS, null);
+    }
+
+    /**
+     * Makes the moved item the selected one. The grid is only scrolled when the item is off
+     * screen, otherwise the rows stay where they are.
+     */
+    private void selectMovedItem(int position){
+        final int first = getFirstVisiblePosition();
+        if(position < first || position >= first + getChildCount()){
+            setSelection(position);
+            return;
+        }
+        if(isInTouchMode() || getSelectedItemPosition() == position){
+            return;
+        }
+
+        if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP){
+            // the offset is measured from the top padding
+            setSelectionFromTop(position, getChildAt(position - first).getTop() - getPaddingTop());
+        }
+        else {
+            // GridView has no setSelectionFromTop before Lollipop
+            setSelection(position);
+        }
+    }
+
+    /**
+     * Rebinds the visible children between {@code start} and {@code end} (inclusive) in place
+     * instead of invalidating the whole adapter. Falls back to
+     * {@link android.widget.BaseAdapter#notifyDataSetChanged()} if the adapter does not recycle
+     * the given convertView.
+     */
+    private void refreshPositions(int start, int end){
+        final int first = getFirstVisiblePosition();
+        final int from = Math.max(start, first);
+        final int to = Math.min(end, first + getChildCount() - 1);
+
+        for(int pos = from; pos <= to; pos++){
+            View child = getChildAt(pos - first);
+            if(getAdapter().getView(pos, child, this) != child){
+                getAdapter().notifyDataSetChanged();
+                return;
+            }
+        }
+        // rebound in place, the cells will not be laid out again
+        if(!pendingAnimations.isEmpty() && !isLayoutRequested()){
+            startPendingAnimations();
+        }
+    }
+
+    /**
+     * Animates the cells changed by a swap or move once they show their new items, see
+     * {@link DragStyle#getAnimationDuration()}
+     */
+    private void queueAnimation(int from, int to, boolean move){
+        if(dragStyle.getAnimationDuration() > 0 && from != to){
+            pendingAnimations.add(new SwapHistory.GridSwapOperation(from, to, move));
+        }
+    }
+
+    /**
+     * Slides every visible item changed by the pending swaps and moves from its old cell to its
+     * new one. Only the visible part of a move is walked.
+     */
+    private void startPendingAnimations(){
+        final int first = getFirstVisiblePosition();
+        final int last = first + getChildCount() - 1;
+        for(SwapHistory.GridSwapOperation op : pendingAnimations){
+            int from = op.getFrom();
+            int to = op.getTo();
+            if(!op.isMove()){
+                animateCell(to, from);
+                animateCell(from, to);
+                continue;
+            }
+            // the items in between shifted one cell towards from
+            int step = from < to ? 1 : -1;
+            int start = Math.max(Math.min(from, to), first);
+            int end = Math.min(Math.max(from, to), last);
+            for(int pos = start; pos <= end; pos++){
+                animateCell(pos == to ? from : pos + step, pos);
+            }
+        }
+        pendingAnimations.clear();
+    }
+
+    /**
+     * Slides the item now at {@code to} in from the cell at {@code from}, if both are visible
+     */
+    private void animateCell(int from, int to){
+        final int first = getFirstVisiblePosition();
+        View source = getChildAt(from - first);
+        View target = getChildAt(to - first);
+        if(source == null || target == null || !getAdapter().isItem(to)){
+            return;
+        }
+        createTranslationAnimations(target, source.getLeft() - target.getLeft(), 0,
+                source.getTop() - target.getTop(), 0);
+    }
+
 
     public View getViewByPosition(int pos) {
         final int firstListItemPosition = getFirstVisiblePosition();
@@ -199,9 +1295,8 @@ public class DynamicGridView extends GridView implements AdapterView.OnItemLongC
 
     private TranslateAnimation createTranslationAnimations(View view, float startX, float endX, float startY, float endY) {
         TranslateAnimation animation = new TranslateAnimation(startX, endX, startY, endY);
-        animation.setDuration(100);
-        view.setAnimation(animation);
-        view.setAlpha(1.0f);
+        animation.setDuration(dragStyle.getAnimationDuration());
+        view.startAnimation(animation);
         return animation;
     }
 
@@ -259,6 +1354,74 @@ public class DynamicGridView extends GridView implements AdapterView.OnItemLongC
         return INVALID_POSITION;
     }
 
+    /**
+     * Sets the style used for drag shadows and swap animations. Takes effect on the next drag,
+     * the view does not need to be recreated.
+     * @param dragStyle the new style, {@code null} restores {@link DragStyle#DEFAULT}
+     */
+    public void setDragStyle(DragStyle dragStyle) {
+        this.dragStyle = dragStyle == null ? DragStyle.DEFAULT : dragStyle;
+    }
+
+    public DragStyle getDragStyle() {
+        return dragStyle;
+    }
+
+    /**
+     * @return true while a drag operation is in progress
+     */
+    public boolean isDragging(){
+        return currentlyDraggedOverPosition != -1 || pointerDragCount > 0 || pickedUpIndex != -1;
+    }
+
+    /**
+     * Equivalent to {@link #setReorderPersister(ReorderPersister, java.util.concurrent.Executor)}
+     * using {@link android.os.AsyncTask#SERIAL_EXECUTOR}
+     */
+    public void setReorderPersister(ReorderPersister reorderPersister) {
+        setReorderPersister(reorderPersister, AsyncTask.SERIAL_EXECUTOR);
+    }
+
+    /**
+     * Sets the persister that receives the result of every drop. Drops made in quick succession
+     * are coalesced into a single {@link ReorderChangeset}. If persisting fails all uncommitted
+     * reorders are rolled back. Reorders are only recorded while a persister is set.
+     *
+     * @param reorderPersister the persister or {@code null} to stop committing drops, which
+     *                         discards the uncommitted reorders
+     * @param executor the executor {@link ReorderPersister#persist(ReorderChangeset)} is run on
+     */
+    public void setReorderPersister(ReorderPersister reorderPersister, Executor executor) {
+        dropCommitter.setPersister(reorderPersister, executor);
+    }
+
+    public void setOnCommitListener(OnCommitListener onCommitListener) {
+        dropCommitter.setOnCommitListener(onCommitListener == null ? new DefOnCommitListener() : onCommitListener);
+    }
+
+    /**
+     * Commits pending drops without waiting for further drops to coalesce, e.g. from onPause
+     */
+    public void commitDrops(){
+        dropCommitter.commit();
+    }
+
+    @Override
+    public void setAdapter(ListAdapter adapter) {
+        super.setAdapter(adapter);
+        if(dropCommitter != null){
+            pickedUpIndex = -1;
+            pickUpHistory.clear();
+            pendingAccessibilityFocus = -1;
+            pendingAnimations.clear();
+            dropCommitter.reset();
+        }
+        // the recycler is cleared along with the old adapter
+        if(scrapViews != null){
+            scrapViews.clear();
+        }
+    }
+
     /**
      * Equivalent to {@link #setAdapter(android.widget.ListAdapter)}
      */
@@ -306,6 +1469,34 @@ public class DynamicGridView extends GridView implements AdapterView.OnItemLongC
         public void onDrop(int from, int to);
     }
 
+    public interface ReorderPersister {
+
+        /**
+         * Persists the reorders since the last commit. Called on a background thread.
+         *
+         * @param changeset the reorders, as indexes in the adapter's data
+         * @throws Exception if persisting failed, in which case the reorders are rolled back
+         */
+        public void persist(ReorderChangeset changeset) throws Exception;
+    }
+
+    public interface OnCommitListener {
+
+        /**
+         * Called on the main thread after a changeset was persisted
+         */
+        public void onCommitted(ReorderChangeset changeset);
+
+        /**
+         * Called on the main thread after persisting failed and the uncommitted reorders were
+         * rolled back
+         *
+         * @param changeset the changeset that could not be persisted
+         * @param error the exception thrown by the persister
+         */
+        public void onRolledBack(ReorderChangeset changeset, Exception error);
+    }
+
     /**
      * Implementation of OnDragListener that simply logs the methods
      */
@@ -331,6 +1522,121 @@ public class DynamicGridView extends GridView implements AdapterView.OnItemLongC
         }
     }
 
+    /**
+     * Implementation of OnCommitListener that simply logs the methods
+     */
+    public static class DefOnCommitListener implements OnCommitListener {
+        @Override
+        public void onCommitted(ReorderChangeset changeset) {
+            log("Committed %d reorders", changeset.size());
+        }
+
+        @Override
+        public void onRolledBack(ReorderChangeset changeset, Exception error) {
+            log("Rolled back %d reorders: %s", changeset.size(), error);
+        }
+    }
+
+    /**
+     * A DragShadowBuilder that draws the dragged view with {@link DragStyle#drawShadow}. The
+     * platform allocates a surface of the reported size and keeps it for the whole drag, so the
+     * view is drawn into it directly, at full resolution, without an intermediate bitmap.
+     */
+    private static class StyledDragShadowBuilder extends DragShadowBuilder {
+
+        private final DragStyle dragStyle;
+        private final Point size;
+
+        public StyledDragShadowBuilder(View view, DragStyle dragStyle) {
+            super(view);
+            this.dragStyle = dragStyle;
+            this.size = new Point();
+            dragStyle.getShadowSize(view, size);
+        }
+
+        @Override
+        public void onProvideShadowMetrics(Point shadowSize, Point shadowTouchPoint) {
+            shadowSize.set(size.x, size.y);
+            shadowTouchPoint.set(size.x / 2, size.y / 2);
+        }
+
+        @Override
+        public void onDrawShadow(Canvas canvas) {
+            View view = getView();
+            if(view == null){
+                return;
+            }
+            // drawn once per drag, a single layer is cheaper than an intermediate bitmap
+            int saveCount = canvas.save();
+            if(dragStyle.getAlpha() < 1.0f){
+                canvas.saveLayerAlpha(0, 0, size.x, size.y,
+                        Math.round(dragStyle.getAlpha() * 255), Canvas.ALL_SAVE_FLAG);
+            }
+            dragStyle.drawShadow(view, canvas, size.x / 2f, size.y / 2f);
+            canvas.restoreToCount(saveCount);
+        }
+    }
+
+    /**
+     * Exposes the move actions to accessibility services on every visible item. Custom actions
+     * are only available on Lollipop and above, older platforms can still use the key bindings.
+     */
+    private class ItemAccessibilityDelegate extends AccessibilityDelegate {
+
+        @Override
+        public void onInitializeAccessibilityNodeInfo(View host, AccessibilityNodeInfo info) {
+            super.onInitializeAccessibilityNodeInfo(host, info);
+            if(Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP){
+                return;
+            }
+
+            int position = getPositionForView(host);
+            if(position == INVALID_POSITION){
+                return;
+            }
+            for(int i = 0; i < MOVE_ACTION_IDS.length; i++){
+                if(canPerformMoveAction(position, MOVE_ACTION_IDS[i])){
+                    info.addAction(new AccessibilityNodeInfo.AccessibilityAction(MOVE_ACTION_IDS[i],
+                            getContext().getString(MOVE_ACTION_LABELS[i])));
+                }
+            }
+        }
+
+        @Override
+        public boolean performAccessibilityAction(View host, int action, Bundle args) {
+            int position = getPositionForView(host);
+            if(position != INVALID_POSITION && performMoveAction(position, action)){
+                return true;
+            }
+            return super.performAccessibilityAction(host, action, args);
+        }
+    }
+
+    /**
+     * Forwards memory trim events to {@link #trimMemory(int)}. Only instantiated on Ice Cream
+     * Sandwich and above where ComponentCallbacks2 exists.
+     */
+    private class TrimMemoryCallbacks implements ComponentCallbacks2 {
+
+        @Override
+        public void onTrimMemory(int level) {
+            trimMemory(level);
+        }
+
+        @Override
+        public void onLowMemory() {
+            trimMemory(TRIM_MEMORY_COMPLETE);
+        }
+
+        @Override
+        public void onConfigurationChanged(Configuration newConfig) {
+        }
+    }
+
+    public static enum Subsystem{
+        swapHistory, adapter, dragShadow
+    }
+
     public static enum SwapDirection{
         left, up, right, down
     }
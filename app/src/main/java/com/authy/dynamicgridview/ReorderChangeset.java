@@ -0,0 +1,97 @@
+package com.authy.dynamicgridview;
+
+import java.util.List;
+
+/**
+ * The reorder operations since the last commit, compacted with
+ * {@link SwapHistory#compactOps(List)}. Operations are expressed as indexes in the adapter's data,
+ * ignoring section headers and filler cells, so they can be applied in order to the persisted
+ * list, see {@link #apply(List)}.
+ *
+ * Changesets are immutable so they can be handed to a background thread.
+ */
+public class ReorderChangeset {
+
+    private final int[] fromIndexes;
+    private final int[] toIndexes;
+    private final boolean[] moves;
+
+    private ReorderChangeset(int[] fromIndexes, int[] toIndexes, boolean[] moves) {
+        this.fromIndexes = fromIndexes;
+        this.toIndexes = toIndexes;
+        this.moves = moves;
+    }
+
+    /**
+     * Compacts the given operations into a changeset. Does not touch the adapter, so it can run
+     * on any thread.
+     *
+     * @param ops the operations to compact, oldest first
+     */
+    public static ReorderChangeset fromOps(List<SwapHistory.GridSwapOperation> ops){
+        List<SwapHistory.GridSwapOperation> compacted = SwapHistory.compactOps(ops);
+
+        int count = compacted.size();
+        int[] fromIndexes = new int[count];
+        int[] toIndexes = new int[count];
+        boolean[] moves = new boolean[count];
+        for(int i = 0; i < count; i++){
+            SwapHistory.GridSwapOperation op = compacted.get(i);
+            fromIndexes[i] = op.getFrom();
+            toIndexes[i] = op.getTo();
+            moves[i] = op.isMove();
+        }
+        return new ReorderChangeset(fromIndexes, toIndexes, moves);
+    }
+
+    /**
+     * @return the number of operations
+     */
+    public int size(){
+        return moves.length;
+    }
+
+    public boolean isEmpty(){
+        return moves.length == 0;
+    }
+
+    /**
+     * @return the data index of the item moved by the i-th operation, or the first of the two
+     * items swapped by it
+     */
+    public int getFrom(int i){
+        return fromIndexes[i];
+    }
+
+    /**
+     * @return the data index the item is moved to by the i-th operation, or the second of the two
+     * items swapped by it
+     */
+    public int getTo(int i){
+        return toIndexes[i];
+    }
+
+    /**
+     * @return true if the i-th operation is a move (items in between are shifted) rather than a
+     * swap
+     */
+    public boolean isMove(int i){
+        return moves[i];
+    }
+
+    /**
+     * Applies every operation in order to the given list, which must be in the order of the last
+     * commit. Each operation is a single remove and insert or two sets, so on an
+     * {@link java.util.ArrayList} a move costs a shift of the items in between.
+     */
+    public <T> void apply(List<T> list){
+        for(int i = 0; i < moves.length; i++){
+            if(moves[i]){
+                list.add(toIndexes[i], list.remove(fromIndexes[i]));
+            }
+            else {
+                list.set(fromIndexes[i], list.set(toIndexes[i], list.get(fromIndexes[i])));
+            }
+        }
+    }
+}
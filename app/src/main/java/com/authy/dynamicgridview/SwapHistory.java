@@ -1,12 +1,22 @@
 package com.authy.dynamicgridview;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
 import java.util.Stack;
+import java.util.TreeMap;
 
 /**
  * A simple class that manages the swap history stack
  */
 public class SwapHistory {
 
+    /** Rough size of a GridSwapOperation: object header, two ints and a boolean */
+    private static final int OPERATION_BYTES = 24;
+    private static final int REFERENCE_BYTES = 4;
+
     private Stack<GridSwapOperation> opStack;
     private Swapper swapper;
 
@@ -32,16 +42,241 @@ public class SwapHistory {
         return push(new GridSwapOperation(from, to));
     }
 
+    /**
+     * Pushes a move operation, i.e. the item at {@code from} was moved to {@code to} and the items
+     * in between were shifted by one.
+     * @return the size of the stack
+     */
+    public int pushMove(int from, int to){
+        return push(new GridSwapOperation(from, to, true));
+    }
+
     /**
      * Pops the op stack until no elements are left and swaps all elements back into position
      */
     public void reverseOps(){
         while(!opStack.isEmpty()){
             GridSwapOperation gridSwapOp = opStack.pop();
-            swapper.swapItems(gridSwapOp.from, gridSwapOp.to);
+            if(gridSwapOp.isMove()){
+                swapper.moveItem(gridSwapOp.to, gridSwapOp.from);
+            }
+            else {
+                swapper.swapItems(gridSwapOp.from, gridSwapOp.to);
+            }
+        }
+    }
+
+    /**
+     * @return the number of operations in the history
+     */
+    public int size(){
+        return opStack.size();
+    }
+
+    /**
+     * @return a copy of the operations in the history, oldest first
+     */
+    public List<GridSwapOperation> getOps(){
+        return new ArrayList<GridSwapOperation>(opStack);
+    }
+
+    /**
+     * Forgets the {@code count} oldest operations, e.g. because they have been persisted and
+     * should no longer be reversed.
+     */
+    public void discardOldest(int count){
+        opStack.subList(0, Math.min(count, opStack.size())).clear();
+        opStack.trimToSize();
+    }
+
+    /**
+     * Forgets all operations
+     */
+    public void clear(){
+        opStack.clear();
+        opStack.trimToSize();
+    }
+
+    /**
+     * Replaces the history with an equivalent, shorter one: either {@link #compactOps(List)} or,
+     * when that keeps moves, the net permutation as at most one swap per touched position,
+     * whichever is shorter. {@link #reverseOps()} restores the same arrangement as before
+     * compacting.
+     */
+    public void compact(){
+        if(opStack.size() < 2){
+            return;
+        }
+        List<GridSwapOperation> ops = compactOps(opStack);
+        if(containsMove(ops)){
+            List<GridSwapOperation> permutation = netPermutationSwaps(opStack);
+            if(permutation.size() < ops.size()){
+                ops = permutation;
+            }
+        }
+        opStack.clear();
+        opStack.addAll(ops);
+        opStack.trimToSize();
+    }
+
+    /**
+     * @return an estimate of the memory held by the history, in bytes
+     */
+    public long getRetainedBytes(){
+        return (long) opStack.size() * OPERATION_BYTES + (long) opStack.capacity() * REFERENCE_BYTES;
+    }
+
+    /**
+     * Compacts the given operations without changing their result. Every run of consecutive
+     * swaps is replaced by the fewest swaps that produce the same arrangement, at most one per
+     * moved item. Moves are kept as single operations, so the cost does not depend on how far
+     * items were moved.
+     *
+     * @param ops the operations, oldest first
+     * @return the compacted operations, oldest first
+     */
+    public static List<GridSwapOperation> compactOps(List<GridSwapOperation> ops){
+        List<GridSwapOperation> result = new ArrayList<GridSwapOperation>();
+        int runStart = 0;
+        for(int i = 0; i <= ops.size(); i++){
+            if(i < ops.size() && !ops.get(i).isMove()){
+                continue;
+            }
+            appendMinimalSwaps(ops.subList(runStart, i), result);
+            if(i < ops.size() && ops.get(i).getFrom() != ops.get(i).getTo()){
+                result.add(ops.get(i));
+            }
+            runStart = i + 1;
+        }
+        return result;
+    }
+
+    /**
+     * Replays the given swaps on the touched positions only.
+     * @param ops the swaps, oldest first. Moves are not supported, see {@link #compactOps(List)}
+     * @return a map from every touched position to the position its current item had before the
+     * first swap
+     */
+    public static SortedMap<Integer, Integer> computeOrigins(List<GridSwapOperation> ops){
+        TreeMap<Integer, Integer> origins = new TreeMap<Integer, Integer>();
+
+        for(GridSwapOperation op : ops){
+            if(op.isMove()){
+                throw new IllegalArgumentException("Moves are not supported");
+            }
+            int fromOrigin = originOf(origins, op.getFrom());
+            origins.put(op.getFrom(), originOf(origins, op.getTo()));
+            origins.put(op.getTo(), fromOrigin);
+        }
+        return origins;
+    }
+
+    /**
+     * Appends the fewest swaps equivalent to the given swaps to {@code result}, fixing one
+     * position per swap starting from the arrangement before the first swap.
+     */
+    private static void appendMinimalSwaps(List<GridSwapOperation> swaps, List<GridSwapOperation> result){
+        if(swaps.size() < 2){
+            for(GridSwapOperation op : swaps){
+                if(op.getFrom() != op.getTo()){
+                    result.add(op);
+                }
+            }
+            return;
+        }
+
+        Map<Integer, Integer> originAt = new HashMap<Integer, Integer>();
+        Map<Integer, Integer> positionOf = new HashMap<Integer, Integer>();
+        for(Map.Entry<Integer, Integer> entry : computeOrigins(swaps).entrySet()){
+            int position = entry.getKey();
+            int origin = entry.getValue();
+            Integer current = positionOf.get(origin);
+            int source = current == null ? origin : current;
+            if(source == position){
+                continue;
+            }
+            Integer displaced = originAt.get(position);
+            int displacedOrigin = displaced == null ? position : displaced;
+
+            result.add(new GridSwapOperation(position, source));
+            originAt.put(position, origin);
+            positionOf.put(origin, position);
+            originAt.put(source, displacedOrigin);
+            positionOf.put(displacedOrigin, source);
         }
     }
 
+    /**
+     * Replays the given operations, moves included, on the span of positions they touch and
+     * returns the fewest swaps that produce the same arrangement, fixing one position per swap.
+     * That is at most one swap less than the span, however many operations there were.
+     */
+    private static List<GridSwapOperation> netPermutationSwaps(List<GridSwapOperation> ops){
+        int low = Integer.MAX_VALUE;
+        int high = Integer.MIN_VALUE;
+        for(GridSwapOperation op : ops){
+            low = Math.min(low, Math.min(op.getFrom(), op.getTo()));
+            high = Math.max(high, Math.max(op.getFrom(), op.getTo()));
+        }
+
+        // origins[i]: the position, relative to low, the item now at low + i started at
+        int[] origins = new int[high - low + 1];
+        for(int i = 0; i < origins.length; i++){
+            origins[i] = i;
+        }
+        for(GridSwapOperation op : ops){
+            int from = op.getFrom() - low;
+            int to = op.getTo() - low;
+            int origin = origins[from];
+            if(!op.isMove()){
+                origins[from] = origins[to];
+            }
+            else if(from < to){
+                System.arraycopy(origins, from + 1, origins, from, to - from);
+            }
+            else {
+                System.arraycopy(origins, to, origins, to + 1, from - to);
+            }
+            origins[to] = origin;
+        }
+
+        // replay the arrangement from the start, current[i] is the origin of the item at low + i
+        int[] current = new int[origins.length];
+        int[] positionOf = new int[origins.length];
+        for(int i = 0; i < origins.length; i++){
+            current[i] = i;
+            positionOf[i] = i;
+        }
+        List<GridSwapOperation> result = new ArrayList<GridSwapOperation>();
+        for(int position = 0; position < origins.length; position++){
+            int source = positionOf[origins[position]];
+            if(source == position){
+                continue;
+            }
+            result.add(new GridSwapOperation(low + position, low + source));
+            int displaced = current[position];
+            current[position] = origins[position];
+            positionOf[origins[position]] = position;
+            current[source] = displaced;
+            positionOf[displaced] = source;
+        }
+        return result;
+    }
+
+    private static boolean containsMove(List<GridSwapOperation> ops){
+        for(GridSwapOperation op : ops){
+            if(op.isMove()){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int originOf(Map<Integer, Integer> origins, int position){
+        Integer origin = origins.get(position);
+        return origin == null ? position : origin;
+    }
+
     /**
      * An abstraction for a class that provides a swap operation over its elements.
      */
@@ -60,6 +295,15 @@ public class SwapHistory {
          * @param pos2 the second item's position
          */
         public void swapItems(int pos1, int pos2);
+
+        /**
+         * Moves the element at {@code from} to {@code to}, shifting the elements in between by
+         * one. moveItem(A,B); moveItem(B,A) should do nothing.
+         *
+         * @param from the item's current position
+         * @param to the item's new position
+         */
+        public void moveItem(int from, int to);
     }
 
     /**
@@ -71,10 +315,16 @@ public class SwapHistory {
 
         private int from;
         private int to;
+        private boolean move;
 
         public GridSwapOperation(int from, int to) {
+            this(from, to, false);
+        }
+
+        public GridSwapOperation(int from, int to, boolean move) {
             this.from = from;
             this.to = to;
+            this.move = move;
         }
 
         /**
@@ -90,5 +340,12 @@ public class SwapHistory {
         public int getTo() {
             return to;
         }
+
+        /**
+         * @return true if this is a move (items in between are shifted) rather than a swap
+         */
+        public boolean isMove() {
+            return move;
+        }
     }
 }
\ No newline at end of file
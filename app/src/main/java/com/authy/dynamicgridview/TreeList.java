@@ -0,0 +1,217 @@
+package com.authy.dynamicgridview;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * A list backed by a randomized binary search tree keyed by position. Getting, setting,
+ * inserting and removing at any index all take O(log n) expected time, so moving an item to the
+ * other end of the list costs about the same on 50k items as on 50. An {@link java.util.ArrayList}
+ * shifts every item in between instead.
+ *
+ * Nodes live in parallel arrays, a node costs three ints and a reference. Removed nodes are
+ * reused by the next insertion, so a move does not allocate.
+ */
+class TreeList<T> extends AbstractList<T> {
+
+    private static final int NIL = -1;
+    private static final int INITIAL_CAPACITY = 16;
+
+    /** Rough size of a node: the value reference and the left, right and size ints */
+    static final int NODE_BYTES = 16;
+
+    private Object[] values;
+    private int[] left;
+    private int[] right;
+    private int[] size;
+
+    private int root;
+    /** number of node slots in use or on the free list */
+    private int allocated;
+    /** head of the list of removed nodes, linked through {@link #left} */
+    private int free;
+
+    private final Random random;
+
+    // results of split(), Java has no tuples
+    private int splitLeft;
+    private int splitRight;
+
+    public TreeList() {
+        random = new Random();
+        clear();
+    }
+
+    @Override
+    public T get(int index) {
+        return value(find(index));
+    }
+
+    @Override
+    public T set(int index, T value) {
+        int node = find(index);
+        T previous = value(node);
+        values[node] = value;
+        return previous;
+    }
+
+    @Override
+    public int size() {
+        return sizeOf(root);
+    }
+
+    @Override
+    public void add(int index, T value) {
+        if(index < 0 || index > size()){
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size());
+        }
+        int node = allocate(value);
+        split(root, index);
+        int after = splitRight;
+        root = merge(merge(splitLeft, node), after);
+        modCount++;
+    }
+
+    @Override
+    public T remove(int index) {
+        checkIndex(index);
+        split(root, index);
+        int before = splitLeft;
+        split(splitRight, 1);
+        int node = splitLeft;
+        root = merge(before, splitRight);
+
+        T value = value(node);
+        values[node] = null;
+        left[node] = free;
+        free = node;
+        modCount++;
+        return value;
+    }
+
+    @Override
+    public void clear() {
+        values = new Object[INITIAL_CAPACITY];
+        left = new int[INITIAL_CAPACITY];
+        right = new int[INITIAL_CAPACITY];
+        size = new int[INITIAL_CAPACITY];
+        root = NIL;
+        allocated = 0;
+        free = NIL;
+        modCount++;
+    }
+
+    /**
+     * @return an estimate of the memory held by the node arrays, in bytes
+     */
+    public long getRetainedBytes(){
+        return (long) values.length * NODE_BYTES;
+    }
+
+    private int find(int index){
+        checkIndex(index);
+        int node = root;
+        while(true){
+            int leftSize = sizeOf(left[node]);
+            if(index < leftSize){
+                node = left[node];
+            }
+            else if(index == leftSize){
+                return node;
+            }
+            else {
+                index -= leftSize + 1;
+                node = right[node];
+            }
+        }
+    }
+
+    /**
+     * Splits the tree rooted at {@code node} into its first {@code count} nodes, stored in
+     * {@link #splitLeft}, and the rest, stored in {@link #splitRight}.
+     */
+    private void split(int node, int count){
+        if(node == NIL){
+            splitLeft = NIL;
+            splitRight = NIL;
+            return;
+        }
+        int leftSize = sizeOf(left[node]);
+        if(count <= leftSize){
+            split(left[node], count);
+            left[node] = splitRight;
+            update(node);
+            splitRight = node;
+        }
+        else {
+            split(right[node], count - leftSize - 1);
+            right[node] = splitLeft;
+            update(node);
+            splitLeft = node;
+        }
+    }
+
+    /**
+     * Concatenates two trees. The root is picked with a probability proportional to the size of
+     * each tree, which keeps the expected depth logarithmic without storing priorities.
+     */
+    private int merge(int first, int second){
+        if(first == NIL){
+            return second;
+        }
+        if(second == NIL){
+            return first;
+        }
+        if(random.nextInt(size[first] + size[second]) < size[first]){
+            right[first] = merge(right[first], second);
+            update(first);
+            return first;
+        }
+        left[second] = merge(first, left[second]);
+        update(second);
+        return second;
+    }
+
+    private int allocate(T value){
+        int node;
+        if(free != NIL){
+            node = free;
+            free = left[node];
+        }
+        else {
+            if(allocated == values.length){
+                int capacity = values.length * 2;
+                values = Arrays.copyOf(values, capacity);
+                left = Arrays.copyOf(left, capacity);
+                right = Arrays.copyOf(right, capacity);
+                size = Arrays.copyOf(size, capacity);
+            }
+            node = allocated++;
+        }
+        values[node] = value;
+        left[node] = NIL;
+        right[node] = NIL;
+        size[node] = 1;
+        return node;
+    }
+
+    private void update(int node){
+        size[node] = 1 + sizeOf(left[node]) + sizeOf(right[node]);
+    }
+
+    private int sizeOf(int node){
+        return node == NIL ? 0 : size[node];
+    }
+
+    private void checkIndex(int index){
+        if(index < 0 || index >= size()){
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private T value(int node){
+        return (T) values[node];
+    }
+}